@@ -30,13 +30,10 @@ const navLinkClasses = ({ isActive }: any) => {
 /**
  * Generates the profile picture URL for a given user.
  * @param userInfo - The user information object.
- * @returns The profile picture URL.
+ * @returns The profile picture URL, using a thumbnail sized for the avatar.
  */
 function profilePictureUrl(userInfo: UserInfo): string {
-  const profilePictureUrl = `data:image;base64,${btoa(
-    userInfo.picture ? userInfo.picture.reduce((str, n) => str + String.fromCharCode((n + 256) % 256), '') : ''
-  )}`;
-  return profilePictureUrl;
+  return userInfo.pictureUrl ? `${userInfo.pictureUrl}&size=64` : '';
 }
 
 export default function MainLayout() {
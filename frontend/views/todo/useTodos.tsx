@@ -1,23 +1,29 @@
 import { useEffect, useState } from "react";
 import { useForm, useFormPart } from "@hilla/react-form";
 import {
+  ContactEndpoint,
   EventEndpoint,
   TodoEndpoint,
   UserInfoService,
 } from "Frontend/generated/endpoints";
 import { EndpointError, Subscription } from "@hilla/frontend";
 import type Todo from "Frontend/generated/com/example/application/data/Todo";
+import type Contact from "Frontend/generated/com/example/application/data/Contact";
 import { Notification } from "@hilla/react-components/Notification.js";
 import Message from "Frontend/generated/com/example/application/services/EventService/Message";
 import TodoModel from "Frontend/generated/com/example/application/data/TodoModel";
 import MessageType from "Frontend/generated/com/example/application/services/EventService/MessageType";
+import type TodoChange from "Frontend/generated/com/example/application/services/TodoChange";
+import Operation from "Frontend/generated/com/example/application/services/TodoChange/Operation";
+import Field from "Frontend/generated/com/example/application/services/TodoPatch/Field";
 import UserInfo from "Frontend/generated/com/example/application/services/UserInfo";
 import { FutureWeekdayAndRequired } from "../data/validators";
 import { useOffline } from "Frontend/util/useOffline";
 import { sub } from "date-fns";
 
 // Use custom hook to fetch all todos from TodoEndpoint.findAll.
-// Also subscribe to EventEndpoint.getEventsCancellable to get notifications from the backend.
+// Also subscribe to EventEndpoint.getEventsCancellable to get notifications from the backend,
+// and to EventEndpoint.getChangesCancellable to patch the list with the changes of the todos.
 // This hook is used in TodoView and wraps the model data and functions in an array.
 
 /**
@@ -39,6 +45,7 @@ import { sub } from "date-fns";
  */
 export function useTodos() {
   const [subscription, setSubscription] = useState<Subscription<Message>>();
+  const [changesSubscription, setChangesSubscription] = useState<Subscription<TodoChange[]>>();
   const [todos, setTodos] = useState(Array<Todo>());
   const [adding, setAdding] = useState(true);
   const [userInfo, setUserInfo] = useState<UserInfo>();
@@ -82,6 +89,15 @@ export function useTodos() {
     };
   }, [subscription]);
 
+  useEffect(() => {
+    if (!changesSubscription) {
+      setChangesSubscription(EventEndpoint.getChangesCancellable().onNext(onChanges));
+    }
+    return () => {
+      changesSubscription?.cancel();
+    };
+  }, [changesSubscription]);
+
   /**
    * Subscribes to the event endpoint and sets up a callback function to handle incoming messages.
    */
@@ -94,7 +110,7 @@ export function useTodos() {
   /**
    * Handles the incoming message event.
    * If the message type is 'EDITING', shows a warning notification.
-   * Otherwise, shows a success notification and updates the list of todos after a delay.
+   * Otherwise, shows a success notification, the list of todos is updated from the change frames.
    * @param event - The incoming message event.
    */
   function onMessage(event: Message) {
@@ -102,13 +118,29 @@ export function useTodos() {
       Notification.show(event.data, { theme: "warning" });
     } else {
       Notification.show(event.data, { theme: "success" });
-      setTimeout(async () => {
-        // Wait 3 seconds before updating the list of todos
-        setTodos(await TodoEndpoint.findAll());
-      }, 3000);
     }
   }
 
+  /**
+   * Handles a frame of todo changes. The new assignees are fetched once for the frame,
+   * as the changes only carry their ids.
+   * @param changes - The changes of the frame.
+   */
+  async function onChanges(changes: TodoChange[]) {
+    const ids = [
+      ...new Set(
+        changes
+          .filter((change) => change.changed.includes("assigned") && change.assignedId != null)
+          .map((change) => change.assignedId!)
+      ),
+    ];
+    const contacts = new Map<number, Contact>();
+    if (ids.length > 0) {
+      (await ContactEndpoint.getContacts(ids)).forEach((contact) => contacts.set(contact.id!, contact));
+    }
+    setTodos((current) => applyChanges(current, changes, contacts));
+  }
+
   /**
    * Removes the done todos from the database and updates the todos state.
    * @returns A promise that resolves when the removal is complete.
@@ -116,7 +148,7 @@ export function useTodos() {
   async function remove(): Promise<void> {
     // Collect done Todos and request to remove from the database using TodoEndpoint.remove
     const dones = todos.filter((todo) => todo.done);
-    await TodoEndpoint.remove(dones);
+    await TodoEndpoint.remove(dones.map(({ id, version }) => ({ id: id!, version })));
     const notDone = todos.filter((todo) => !todo.done);
     setTodos(notDone);
   }
@@ -130,6 +162,11 @@ export function useTodos() {
     try {
       saved = await TodoEndpoint.save(todo);
     } catch (error) {
+      // On conflict show the current state of the todo
+      const current = conflictState(error);
+      if (current) {
+        setTodos(todos.map((item) => (item.id === current.id ? current : item)));
+      }
       handleError(error);
       return;
     }
@@ -199,11 +236,15 @@ export function useTodos() {
     todo: Todo,
     done: boolean | undefined
   ): Promise<void> {
-    // Update status of the Todo, this function is passed down to TodoItem via TodoGrid
+    // Update status of the Todo, this function is passed down to TodoItem via TodoGrid.
+    // Only the done field is updated, so concurrent edits of other fields are kept.
     const isDone = done ? done : false;
-    const newTodo = { ...todo, done: isDone };
-    const saved = (await TodoEndpoint.save(newTodo)) ?? newTodo;
-    setTodos(todos.map((item) => (item.id === todo.id ? saved : item)));
+    try {
+      const saved = await TodoEndpoint.patch({ id: todo.id!, fields: [Field.DONE], done: isDone });
+      setTodos(todos.map((item) => (item.id === todo.id ? saved : item)));
+    } catch (error) {
+      handleError(error);
+    }
   }
 
   return [
@@ -222,6 +263,77 @@ export function useTodos() {
   ] as const;
 }
 
+/**
+ * Applies the todo changes to the list of todos. Changes older than the version
+ * in the list are ignored, as are updates of todos that are not in the list.
+ * @param todos - The current list of todos.
+ * @param changes - The changes to apply.
+ * @param contacts - The new assignees by id.
+ * @returns The updated list of todos.
+ */
+function applyChanges(todos: Todo[], changes: TodoChange[], contacts: Map<number, Contact>): Todo[] {
+  let result = [...todos];
+  changes.forEach((change) => {
+    const index = result.findIndex((item) => item.id === change.id);
+    if (change.operation == Operation.DELETED) {
+      result = result.filter((item) => item.id !== change.id);
+    } else if (index < 0) {
+      if (change.operation == Operation.CREATED) {
+        // A created todo lists all fields as changed
+        result.push(patchTodo({ id: change.id, version: change.version, done: false } as Todo, change, contacts));
+      }
+    } else if ((result[index].version ?? 0) <= change.version) {
+      result[index] = patchTodo({ ...result[index], version: change.version }, change, contacts);
+    }
+  });
+  return result;
+}
+
+/**
+ * Sets the changed fields of the todo to the values of the change.
+ * @param todo - The todo to update.
+ * @param change - The change with the values of the changed fields.
+ * @param contacts - The new assignees by id.
+ * @returns The updated todo.
+ */
+function patchTodo(todo: Todo, change: TodoChange, contacts: Map<number, Contact>): Todo {
+  change.changed.forEach((field) => {
+    switch (field) {
+      case "task":
+        todo.task = change.task ?? "";
+        break;
+      case "description":
+        todo.description = change.description ?? "";
+        break;
+      case "priority":
+        todo.priority = change.priority;
+        break;
+      case "deadline":
+        todo.deadline = change.deadline;
+        break;
+      case "done":
+        todo.done = change.done ?? false;
+        break;
+      case "assigned":
+        todo.assigned = change.assignedId == null ? undefined : contacts.get(change.assignedId);
+        break;
+    }
+  });
+  return todo;
+}
+
+/**
+ * Gets the current state of the todo from a conflict error of the backend.
+ * @param error - The error thrown by the endpoint.
+ * @returns The current todo, or undefined if the error is not a conflict.
+ */
+function conflictState(error: unknown): Todo | undefined {
+  if (error instanceof EndpointError && error.type === "com.example.application.services.TodoConflictException") {
+    return error.detail as Todo;
+  }
+  return undefined;
+}
+
 /**
  * Handles errors from the backend, which are thrown as EndpointError with JSON message.
  * Backend performs validation.
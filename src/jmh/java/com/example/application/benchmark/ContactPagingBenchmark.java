@@ -0,0 +1,101 @@
+package com.example.application.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import com.example.application.Application;
+import com.example.application.data.Contact;
+import com.example.application.services.ContactService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Benchmarks the contact paging against the generated demo data: page N by
+ * offset against the slice at the same position by keyset, and the latency
+ * distribution (p50, p99) of the e-mail filter as an indexed prefix of the
+ * lower case column against the previous substring match of the e-mail.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContactPagingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param("1")
+    public int scale;
+
+    @Param({ "1", "20" })
+    public int page;
+
+    @Param("an")
+    public String filter;
+
+    private ConfigurableApplicationContext context;
+    private ContactService contactService;
+    private EntityManager entityManager;
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Passed as arguments, which take precedence over application.properties
+        context = new SpringApplicationBuilder(Application.class).run("--server.port=0",
+                "--management.server.port=-1", "--vaadin.launch-browser=false", "--logging.level.root=warn",
+                "--com.example.application.data.scale=" + scale);
+        contactService = context.getBean(ContactService.class);
+        entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+
+        // The continuation token of the slice at the same position as the page
+        cursor = null;
+        for (int i = 0; i < page; i++) {
+            cursor = contactService.encodeCursor(contactService.getSlice(cursor, PAGE_SIZE, null, "asc"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object offsetPage() {
+        return contactService.getPage(page, PAGE_SIZE, null, "asc");
+    }
+
+    @Benchmark
+    public Object keysetSlice() {
+        return contactService.getSlice(cursor, PAGE_SIZE, null, "asc");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object filterByPrefix() {
+        return entityManager
+                .createQuery("select c from Contact c where c.emailLower like :filter"
+                        + " order by c.lastName, c.firstName", Contact.class)
+                .setParameter("filter", filter + "%").setMaxResults(PAGE_SIZE).getResultList();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object filterBySubstring() {
+        return entityManager
+                .createQuery("select c from Contact c where lower(c.email) like :filter"
+                        + " order by c.lastName, c.firstName", Contact.class)
+                .setParameter("filter", "%" + filter + "%").setMaxResults(PAGE_SIZE).getResultList();
+    }
+}
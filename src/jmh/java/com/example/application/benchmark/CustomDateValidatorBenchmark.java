@@ -0,0 +1,38 @@
+package com.example.application.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.application.validators.CustomDateValidator;
+
+/**
+ * Benchmarks the deadline validation with valid and invalid dates.
+ */
+@State(Scope.Thread)
+public class CustomDateValidatorBenchmark {
+
+    private final CustomDateValidator validator = new CustomDateValidator();
+    private final LocalDate weekday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY));
+    private final LocalDate weekend = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.SATURDAY));
+    private final LocalDate past = weekday.minusWeeks(2);
+
+    @Benchmark
+    public boolean weekday() {
+        return validator.isValid(weekday, null);
+    }
+
+    @Benchmark
+    public boolean weekend() {
+        return validator.isValid(weekend, null);
+    }
+
+    @Benchmark
+    public boolean past() {
+        return validator.isValid(past, null);
+    }
+}
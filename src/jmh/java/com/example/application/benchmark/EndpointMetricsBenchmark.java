@@ -0,0 +1,53 @@
+package com.example.application.benchmark;
+
+import java.time.Duration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.example.application.services.EndpointMetrics;
+
+import dev.hilla.BrowserCallable;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/**
+ * Benchmarks the cost EndpointMetrics adds to an endpoint call, compare the
+ * timed call with the direct call.
+ */
+@State(Scope.Benchmark)
+public class EndpointMetricsBenchmark {
+
+    @BrowserCallable
+    public static class Endpoint {
+        public int call(int value) {
+            return value + 1;
+        }
+    }
+
+    private final Endpoint direct = new Endpoint();
+    private Endpoint timed;
+    private int value;
+
+    @Setup
+    public void setup() {
+        var factory = new AspectJProxyFactory(new Endpoint());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new EndpointMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT),
+                new Duration[] { Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250) }));
+        timed = factory.getProxy();
+    }
+
+    @Benchmark
+    public int direct() {
+        return direct.call(value++);
+    }
+
+    @Benchmark
+    public int timed() {
+        return timed.call(value++);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.application.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.example.application.services.EventService;
+import com.example.application.services.EventService.Message;
+import com.example.application.services.EventService.OverflowPolicy;
+
+import reactor.core.Disposable;
+
+/**
+ * Benchmarks the fan-out of a message to the subscribers.
+ */
+@State(Scope.Benchmark)
+public class EventServiceBenchmark {
+
+    @Param({ "1", "100", "1000", "10000" })
+    public int subscribers;
+
+    private EventService eventService;
+    private final List<Disposable> subscriptions = new ArrayList<>();
+    private Message message;
+
+    @Setup
+    public void setup() {
+        eventService = new EventService(256, OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < subscribers; i++) {
+            subscriptions.add(eventService.join().subscribe(m -> {
+            }));
+        }
+        message = new Message();
+        message.data = "Todo: 1/Benchmark saved!";
+        message.id = 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscriptions.forEach(Disposable::dispose);
+        subscriptions.clear();
+    }
+
+    @Benchmark
+    public void send() {
+        eventService.send(message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.application.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.application.security.BoundedPasswordEncoder;
+
+/**
+ * Benchmarks the password checks per second of concurrent logins, with the
+ * hashing on the calling threads against {@link BoundedPasswordEncoder},
+ * which runs it on a pool of one thread per CPU.
+ */
+@State(Scope.Benchmark)
+@Threads(16)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PasswordEncoderBenchmark {
+
+    @Param("10")
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private BoundedPasswordEncoder boundedEncoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(strength);
+        // The queue holds all benchmark threads, so no check is rejected
+        boundedEncoder = new BoundedPasswordEncoder(encoder, Runtime.getRuntime().availableProcessors(), 64);
+        hash = encoder.encode("password");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        boundedEncoder.destroy();
+    }
+
+    @Benchmark
+    public boolean unbounded() {
+        return encoder.matches("password", hash);
+    }
+
+    @Benchmark
+    public boolean bounded() {
+        return boundedEncoder.matches("password", hash);
+    }
+}
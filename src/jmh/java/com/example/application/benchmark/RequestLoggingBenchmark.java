@@ -0,0 +1,52 @@
+package com.example.application.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+import com.example.application.services.RequestLogSampler;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Benchmarks the cost of a request log statement that is not written, run
+ * with {@code -prof gc} for the bytes allocated per operation: string
+ * concatenation, parameterized logging and the sampled parameterized logging
+ * of the endpoints.
+ */
+@State(Scope.Thread)
+public class RequestLoggingBenchmark {
+
+    private Logger logger;
+    private RequestLogSampler sampler;
+    private int page = 3;
+    private int pageSize = 50;
+    private long total = 12345;
+
+    @Setup
+    public void setUp() {
+        logger = (Logger) LoggerFactory.getLogger(RequestLoggingBenchmark.class);
+        logger.setLevel(Level.WARN);
+        sampler = new RequestLogSampler(10);
+    }
+
+    @Benchmark
+    public void concatenated() {
+        logger.info("Page " + page + " fetched with " + pageSize + "/" + total + " todos");
+    }
+
+    @Benchmark
+    public void parameterized() {
+        logger.info("Page {} fetched with {}/{} todos", page, pageSize, total);
+    }
+
+    @Benchmark
+    public void sampled() {
+        if (sampler.sample(logger)) {
+            logger.info("Page {} fetched with {}/{} todos", page, pageSize, total);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.application.benchmark;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.application.Application;
+import com.example.application.data.Todo;
+import com.example.application.services.TodoEndpoint;
+
+/**
+ * Benchmarks saving a number of new todos with {@link TodoEndpoint#saveAll},
+ * which inserts them in JDBC batches in one transaction, against saving them
+ * one by one with {@link TodoEndpoint#save}.
+ */
+@State(Scope.Benchmark)
+public class SaveBenchmark {
+
+    @Param("100")
+    public int todos;
+
+    private ConfigurableApplicationContext context;
+    private TodoEndpoint todoEndpoint;
+    private LocalDate deadline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Passed as arguments, which take precedence over application.properties
+        context = new SpringApplicationBuilder(Application.class).run("--server.port=0",
+                "--management.server.port=-1", "--vaadin.launch-browser=false", "--logging.level.root=warn",
+                "--com.example.application.data.generate=false");
+        todoEndpoint = context.getBean(TodoEndpoint.class);
+        deadline = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object saveAll() {
+        return todoEndpoint.saveAll(createTodos());
+    }
+
+    @Benchmark
+    public Object saveLoop() {
+        List<Todo> saved = new ArrayList<>();
+        for (Todo todo : createTodos()) {
+            saved.add(todoEndpoint.save(todo));
+        }
+        return saved;
+    }
+
+    private List<Todo> createTodos() {
+        List<Todo> result = new ArrayList<>(todos);
+        for (int i = 0; i < todos; i++) {
+            var todo = new Todo("Task " + i);
+            todo.setDescription("Description " + i);
+            todo.setPriority(1 + i % 5);
+            todo.setDeadline(deadline);
+            result.add(todo);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.application.benchmark;
+
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.application.Application;
+import com.example.application.data.Contact;
+import com.example.application.data.ContactRepository;
+import com.example.application.data.Todo;
+import com.example.application.data.TodoRepository;
+import com.example.application.services.ContactService;
+import com.example.application.services.StatsEndpoint;
+import com.example.application.services.TodoEndpoint;
+
+/**
+ * Benchmarks the endpoint and service hot paths against the generated demo
+ * data, the size of the data set is the DataGenerator scale.
+ */
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+
+    @Param("1")
+    public int scale;
+
+    private ConfigurableApplicationContext context;
+    private StatsEndpoint statsEndpoint;
+    private TodoEndpoint todoEndpoint;
+    private ContactService contactService;
+
+    private Todo todo;
+    private Contact contact;
+    private boolean assign;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Passed as arguments, which take precedence over application.properties
+        context = new SpringApplicationBuilder(Application.class).run("--server.port=0",
+                "--management.server.port=-1", "--vaadin.launch-browser=false", "--logging.level.root=warn",
+                "--com.example.application.data.scale=" + scale);
+        statsEndpoint = context.getBean(StatsEndpoint.class);
+        todoEndpoint = context.getBean(TodoEndpoint.class);
+        contactService = context.getBean(ContactService.class);
+
+        // The endpoints are called directly, the benchmark threads share the
+        // authentication of an admin
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER"))));
+
+        // An unassigned todo and a free contact, save toggles the assignment
+        // so that every other save runs the occupancy check
+        var todos = context.getBean(TodoRepository.class).findAll();
+        todo = todos.stream().filter(t -> t.getAssigned() == null).findFirst().orElseThrow();
+        var occupied = todos.stream().filter(t -> t.getAssigned() != null).map(t -> t.getAssigned().getId())
+                .toList();
+        contact = context.getBean(ContactRepository.class).findAll().stream()
+                .filter(c -> !occupied.contains(c.getId())).findFirst().orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object getStats() {
+        return statsEndpoint.getStats();
+    }
+
+    @Benchmark
+    public synchronized Object save() {
+        assign = !assign;
+        todo.setAssigned(assign ? contact : null);
+        todo = todoEndpoint.save(todo);
+        return todo;
+    }
+
+    @Benchmark
+    public Object getContactPage() {
+        return contactService.getPage(0, 50, null, "asc");
+    }
+
+    @Benchmark
+    public Object getContactPageFiltered() {
+        return contactService.getPage(0, 50, "a", "asc");
+    }
+}
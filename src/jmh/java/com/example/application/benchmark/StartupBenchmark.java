@@ -0,0 +1,79 @@
+package com.example.application.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.application.Application;
+import com.example.application.services.TodoEndpoint;
+
+/**
+ * Benchmarks the time from starting the application until the first
+ * {@link TodoEndpoint#findAll()} call has returned, with the default
+ * configuration and with the fast-startup profile. The snapshot for the
+ * fast-startup profile is written by starting the application once with the
+ * default configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class StartupBenchmark {
+
+    @Param({ "default", "fast-startup" })
+    public String profile;
+
+    private Path snapshot;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER"))));
+        snapshot = Files.createTempFile("snapshot", ".sql");
+        start("default", "--com.example.application.startup.snapshot-export=" + snapshot).close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public Object startAndFindAll() {
+        context = start(profile, "--com.example.application.startup.snapshot="
+                + ("fast-startup".equals(profile) ? snapshot : ""));
+        return context.getBean(TodoEndpoint.class).findAll();
+    }
+
+    // Passed as arguments, which take precedence over application.properties
+    private static ConfigurableApplicationContext start(String profile, String snapshotArgument) {
+        return new SpringApplicationBuilder(Application.class).profiles(profile).run("--server.port=0",
+                "--management.server.port=-1", "--vaadin.launch-browser=false", "--logging.level.root=warn",
+                snapshotArgument);
+    }
+}
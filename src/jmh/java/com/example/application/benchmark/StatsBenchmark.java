@@ -0,0 +1,86 @@
+package com.example.application.benchmark;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.application.Application;
+import com.example.application.data.Todo;
+import com.example.application.data.TodoRepository;
+import com.example.application.services.StatsService;
+
+/**
+ * Benchmarks building the todo statistics from scratch: the aggregate queries
+ * of {@link StatsService} against loading all todos and counting them in
+ * memory, as the statistics were built before.
+ */
+@State(Scope.Benchmark)
+public class StatsBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int todos;
+
+    private ConfigurableApplicationContext context;
+    private StatsService statsService;
+    private TodoRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Passed as arguments, which take precedence over application.properties
+        context = new SpringApplicationBuilder(Application.class).run("--server.port=0",
+                "--management.server.port=-1", "--vaadin.launch-browser=false", "--logging.level.root=warn",
+                "--com.example.application.data.generate=false");
+        statsService = context.getBean(StatsService.class);
+        repository = context.getBean(TodoRepository.class);
+        // Inserted in a single statement, generating this many todos through
+        // the entities would take longer than the benchmark
+        context.getBean(JdbcTemplate.class).update("insert into todo (id, version, task, description, priority,"
+                + " deadline, done) select x, 0, 'Task ' || x, 'Description ' || x, 1 + mod(x, 5),"
+                + " dateadd(DAY, mod(x, 60), current_date), mod(x, 3) = 0 from system_range(1, " + todos + ")");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object aggregate() {
+        statsService.invalidate();
+        return statsService.getStats();
+    }
+
+    @Benchmark
+    public Object findAll() {
+        long[] priorityCounts = new long[5];
+        Map<LocalDate, Long> deadlines = new TreeMap<>();
+        long assigned = 0;
+        long done = 0;
+        for (Todo todo : repository.findAll()) {
+            if (todo.getPriority() != null) {
+                priorityCounts[todo.getPriority() - 1]++;
+            }
+            if (todo.getDeadline() != null) {
+                deadlines.merge(todo.getDeadline(), 1L, Long::sum);
+            }
+            if (todo.getAssigned() != null) {
+                assigned++;
+            }
+            if (todo.isDone()) {
+                done++;
+            }
+        }
+        return new Object[] { priorityCounts, deadlines, assigned, done };
+    }
+}
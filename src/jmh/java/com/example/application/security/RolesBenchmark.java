@@ -0,0 +1,83 @@
+package com.example.application.security;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.example.application.data.Role;
+
+/**
+ * Benchmarks the role resolution: the previous scan of all roles for each
+ * authority, the lookup by authority name, and {@link Roles#current()} for a
+ * JWT authentication before and after {@link RolesFilter} has resolved the
+ * roles. In this package as the token and the filter are package private.
+ */
+@State(Scope.Thread)
+public class RolesBenchmark {
+
+    private static final String PREFIX = "ROLE_";
+
+    private final List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("SCOPE_profile",
+            "ROLE_USER", "ROLE_ADMIN");
+    private SecurityContext jwtContext;
+    private SecurityContext resolvedContext;
+
+    @Setup
+    public void setUp() {
+        var jwt = Jwt.withTokenValue("token").header("alg", "HS256").subject("admin")
+                .claim("roles", List.of("USER", "ADMIN")).build();
+        var authentication = new JwtAuthenticationToken(jwt, authorities, "admin");
+        jwtContext = new SecurityContextImpl(authentication);
+        resolvedContext = new SecurityContextImpl(new RolesAuthenticationToken(authentication));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public EnumSet<Role> scan() {
+        var roles = EnumSet.noneOf(Role.class);
+        for (GrantedAuthority authority : authorities) {
+            var name = authority.getAuthority();
+            if (name != null && name.startsWith(PREFIX)) {
+                for (Role role : Role.values()) {
+                    if (name.length() == PREFIX.length() + role.name().length() && name.endsWith(role.name())) {
+                        roles.add(role);
+                    }
+                }
+            }
+        }
+        return roles;
+    }
+
+    @Benchmark
+    public EnumSet<Role> lookup() {
+        return Roles.of(authorities);
+    }
+
+    @Benchmark
+    public EnumSet<Role> currentUnresolved() {
+        SecurityContextHolder.setContext(jwtContext);
+        return Roles.current();
+    }
+
+    @Benchmark
+    public EnumSet<Role> currentResolved() {
+        SecurityContextHolder.setContext(resolvedContext);
+        return Roles.current();
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.application.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Load generator for the Hilla endpoints of a running application. Logs in as
+ * USER and ADMIN and sends a fixed mix of endpoint calls at a constant rate.
+ * Latencies are measured from the scheduled start of each call, so a slow
+ * server does not hide its queueing delay (coordinated omission).
+ * <p>
+ * Configured with system properties: loadtest.url, loadtest.rate (calls per
+ * second), loadtest.duration (seconds), loadtest.threads, loadtest.seed and
+ * loadtest.max-error-rate, above which the run fails. Percentile distributions
+ * are written to loadtest.output.
+ */
+public class LoadTest {
+
+    /**
+     * A call of the mix, the weights are relative.
+     */
+    private enum Operation {
+        TODO_FIND_ALL("TodoEndpoint", "findAll", 50, false),
+        CONTACT_GET_PAGE("ContactEndpoint", "getPage", 30, false),
+        TODO_SAVE("TodoEndpoint", "save", 15, true),
+        EVENT_SEND("EventEndpoint", "send", 5, true);
+
+        private final String endpoint;
+        private final String method;
+        private final int weight;
+        private final boolean admin;
+
+        Operation(String endpoint, String method, int weight, boolean admin) {
+            this.endpoint = endpoint;
+            this.method = method;
+            this.weight = weight;
+            this.admin = admin;
+        }
+
+        private String label() {
+            return endpoint + "/" + method;
+        }
+    }
+
+    private static class Result {
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+    }
+
+    public static void main(String[] args) throws Exception {
+        var url = System.getProperty("loadtest.url", "http://localhost:8080");
+        int rate = Integer.getInteger("loadtest.rate", 50);
+        int duration = Integer.getInteger("loadtest.duration", 60);
+        int threads = Integer.getInteger("loadtest.threads", 16);
+        long seed = Long.getLong("loadtest.seed", 123L);
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        var output = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+
+        var user = new Session(url);
+        user.login("user", "user");
+        var admin = new Session(url);
+        admin.login("admin", "admin");
+
+        Map<Operation, Result> results = new LinkedHashMap<>();
+        for (var operation : Operation.values()) {
+            results.put(operation, new Result());
+        }
+
+        int totalWeight = 0;
+        for (var operation : Operation.values()) {
+            totalWeight += operation.weight;
+        }
+        var random = new Random(seed);
+        long calls = (long) rate * duration;
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        System.out.println("Sending " + calls + " calls to " + url + " at " + rate + "/s");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (long i = 0; i < calls; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            var operation = pick(random.nextInt(totalWeight));
+            var body = body(operation, i);
+            var session = operation.admin ? admin : user;
+            var result = results.get(operation);
+            executor.execute(() -> {
+                try {
+                    int status = session.call(operation.endpoint, operation.method, body);
+                    if (status != 200) {
+                        result.errors.increment();
+                    }
+                } catch (IOException e) {
+                    result.errors.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                result.recorder.recordValue(Math.max(0, System.nanoTime() - scheduled));
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (!report(results, seconds, output, maxErrorRate)) {
+            System.exit(1);
+        }
+    }
+
+    private static Operation pick(int value) {
+        for (var operation : Operation.values()) {
+            if (value < operation.weight) {
+                return operation;
+            }
+            value -= operation.weight;
+        }
+        throw new IllegalStateException();
+    }
+
+    private static String body(Operation operation, long sequence) {
+        return switch (operation) {
+        case TODO_FIND_ALL -> "{}";
+        case CONTACT_GET_PAGE -> "{\"page\":" + (sequence % 20) + ",\"pageSize\":50,\"filter\":\"\",\"direction\":\"asc\"}";
+        case TODO_SAVE -> "{\"todo\":{\"task\":\"Load test " + sequence
+                + "\",\"description\":\"Created by the load test\",\"done\":false,\"priority\":1,\"deadline\":\""
+                + LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY)) + "\"}}";
+        case EVENT_SEND -> "{\"message\":{\"data\":\"Load test " + sequence
+                + "\",\"id\":-1,\"messageType\":\"INFO\"}}";
+        };
+    }
+
+    // Print the summary per endpoint and write the percentile distributions,
+    // returns false if the error rate was exceeded
+    private static boolean report(Map<Operation, Result> results, double seconds, Path output,
+            double maxErrorRate) throws IOException {
+        Files.createDirectories(output);
+        long total = 0;
+        long errors = 0;
+        System.out.printf("%-26s %8s %8s %8s %9s %9s %9s %9s%n", "endpoint", "calls", "errors", "calls/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (var entry : results.entrySet()) {
+            Histogram histogram = entry.getValue().recorder.getIntervalHistogram();
+            long count = histogram.getTotalCount();
+            long failed = entry.getValue().errors.sum();
+            total += count;
+            errors += failed;
+            System.out.printf("%-26s %8d %8d %8.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().label(), count,
+                    failed, count / seconds, millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getMaxValue()));
+            var file = output.resolve(entry.getKey().endpoint + "-" + entry.getKey().method + ".hgrm");
+            try (var out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1_000_000.0);
+            }
+        }
+        double errorRate = total == 0 ? 1 : (double) errors / total;
+        System.out.printf("Total %d calls, %.1f calls/s, error rate %.4f%n", total, total / seconds, errorRate);
+        return errorRate <= maxErrorRate;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
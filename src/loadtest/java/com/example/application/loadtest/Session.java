@@ -0,0 +1,88 @@
+package com.example.application.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP session of one user. Logs in with the stateless JWT flow of
+ * SecurityConfig, the JWT and CSRF cookies are kept by the cookie manager, and
+ * calls the endpoints like the Hilla client does.
+ */
+class Session {
+
+    private static final Pattern CSRF_META = Pattern.compile("<meta name=\"_csrf\" content=\"([^\"]*)\"");
+    private static final Pattern CSRF_HEADER_META = Pattern
+            .compile("<meta name=\"_csrf_header\" content=\"([^\"]*)\"");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final CookieManager cookies = new CookieManager();
+    private final HttpClient client;
+    private String csrfHeader = "X-CSRF-TOKEN";
+    private String csrfToken = "";
+
+    Session(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder().cookieHandler(cookies).connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER).build();
+    }
+
+    /**
+     * Log in and fetch the CSRF token for the authenticated session.
+     */
+    void login(String username, String password) throws IOException, InterruptedException {
+        refreshCsrf();
+        var form = "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8) + "&password="
+                + URLEncoder.encode(password, StandardCharsets.UTF_8);
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/login")).timeout(TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded").header(csrfHeader, csrfToken)
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+        var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400 || response.headers().firstValue("Location").orElse("").contains("error")) {
+            throw new IOException("Login of " + username + " failed with status " + response.statusCode());
+        }
+        // The CSRF token is replaced on login
+        refreshCsrf();
+    }
+
+    /**
+     * Call an endpoint method.
+     *
+     * @return the HTTP status code
+     */
+    int call(String endpoint, String method, String body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/connect/" + endpoint + "/" + method))
+                .timeout(TIMEOUT).header("Content-Type", "application/json").header("Accept", "application/json")
+                .header(csrfHeader, csrfToken).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // The token is in the meta tags of the index page, or in the cookie of
+    // the cookie based token repository
+    private void refreshCsrf() throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/")).timeout(TIMEOUT).GET().build();
+        var page = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        var token = CSRF_META.matcher(page);
+        if (token.find()) {
+            csrfToken = token.group(1);
+            var header = CSRF_HEADER_META.matcher(page);
+            if (header.find()) {
+                csrfHeader = header.group(1);
+            }
+            return;
+        }
+        cookies.getCookieStore().getCookies().stream().filter(cookie -> cookie.getName().equals("XSRF-TOKEN"))
+                .findFirst().ifPresent(cookie -> {
+                    csrfHeader = "X-XSRF-TOKEN";
+                    csrfToken = cookie.getValue();
+                });
+    }
+}
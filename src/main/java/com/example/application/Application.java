@@ -1,6 +1,7 @@
 package com.example.application;
 
 import com.example.application.data.UserRepository;
+import com.example.application.services.StatsService;
 import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.theme.Theme;
 
@@ -31,11 +32,19 @@ public class Application implements AppShellConfigurator {
 
         @Bean
     SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(DataSource dataSource,
-            SqlInitializationProperties properties, UserRepository repository) {
-        // This bean ensures the database is only initialized when empty
+            SqlInitializationProperties properties, UserRepository repository, DatabaseSnapshot snapshot,
+            StatsService statsService) {
+        // This bean ensures the database is only initialized when empty, or
+        // restored from the snapshot without checking it when one is configured
         return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
             @Override
             public boolean initializeDatabase() {
+                if (snapshot.isEnabled()) {
+                    snapshot.restore();
+                    // The restored todos bypass the incremental statistics
+                    statsService.invalidate();
+                    return true;
+                }
                 if (repository.count() == 0L) {
                     return super.initializeDatabase();
                 }
@@ -2,92 +2,209 @@ package com.example.application;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.vaadin.flow.spring.annotation.SpringComponent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.application.data.Contact;
 import com.example.application.data.ContactRepository;
 import com.example.application.data.Todo;
 import com.example.application.data.TodoRepository;
+import com.example.application.services.ContactService;
+import com.example.application.services.StatsService;
 import com.vaadin.exampledata.DataType;
 import com.vaadin.exampledata.ExampleDataGenerator;
 
+/**
+ * Generates the demo data when the database is empty. The amount of data is
+ * the base 1234 contacts and 123 todos multiplied by the scale factor, e.g.
+ * scale 1000 for production sized data. Entities are generated in chunks in
+ * parallel, each chunk with its own seed split from the seed, and inserted in
+ * chunk order, each chunk in its own transaction. The same seed and reference
+ * date generate the same data with the same ids regardless of the number of
+ * threads.
+ */
 @SpringComponent
 public class DataGenerator {
 
+    private static final int CONTACTS = 1234;
+    private static final int TODOS = 123;
+
+    Logger logger = LoggerFactory.getLogger(DataGenerator.class);
+
+    @Value("${com.example.application.data.generate:true}")
+    private boolean generate;
+
+    @Value("${com.example.application.data.seed:123}")
+    private long seed;
+
+    @Value("${com.example.application.data.reference-date:}")
+    private String referenceDate;
+
+    @Value("${com.example.application.data.scale:1}")
+    private int scale;
+
+    @Value("${com.example.application.data.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${com.example.application.data.threads:0}")
+    private int threads;
+
     @Bean
-    public CommandLineRunner loadData(ContactRepository contactRepository, TodoRepository todoRepository) {
+    public CommandLineRunner loadData(ContactRepository contactRepository, TodoRepository todoRepository,
+            StatsService statsService, ContactService contactService, PlatformTransactionManager transactionManager) {
 
         return args -> {
-            Logger logger = LoggerFactory.getLogger(getClass());
+            if (!generate) {
+                return;
+            }
             if (contactRepository.count() != 0L) {
                 logger.info("Using existing database");
                 return;
             }
-            int seed = 123;
-
-            logger.info("Generating demo data");
-
-            logger.info("... generating 1234 Contact entities...");
-            var contactGenerator = new ExampleDataGenerator<>(Contact.class, LocalDateTime.now());
-            contactGenerator.setData(Contact::setFirstName, DataType.FIRST_NAME);
-            contactGenerator.setData(Contact::setLastName, DataType.LAST_NAME);
-            contactGenerator.setData(Contact::setEmail, DataType.EMAIL);
-            contactGenerator.setData(Contact::setDate, DataType.DATE_LAST_1_YEAR);
-
-            Random r = new Random(seed);
-            var contacts = contactGenerator.create(1234, seed).stream().map(contact -> {
-                return contact;
-            }).collect(Collectors.toList());
-
-            contacts.forEach(contact -> {
-                var date = contact.getDate();
-                var newDate = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
-                contact.setDate(newDate);
-            });
-
-            contactRepository.saveAll(contacts);
-
-            var todoGenerator = new ExampleDataGenerator<>(Todo.class, LocalDateTime.now());
-            todoGenerator.setData(Todo::setTask, DataType.TWO_WORDS);
-            todoGenerator.setData(Todo::setDescription, DataType.SENTENCE);
-            todoGenerator.setData(Todo::setDone, DataType.BOOLEAN_10_90);
-
-            Random rand = new Random(seed);
-            AtomicInteger id = new AtomicInteger(0);
-            var todos = todoGenerator.create(123, seed).stream().map(todo -> {
-                var deadLine = LocalDate.now().plusDays(1 + rand.nextInt(7));
-                todo.setDeadline(deadLine);
-                int prio = (int) Math.floor(Math.abs(rand.nextGaussian()) * 2);
-                if (prio > 0) {
-                    todo.setPriority(prio);
-                }
-                if (prio > 2 || todo.isDone()) {
-                    todo.setAssigned(contacts.get(id.getAndIncrement()));
-                }
-                return todo;
-            }).collect(Collectors.toList());
-
-            todos.forEach(todo -> {
-                var date = todo.getDeadline();
-                var newDate = date.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
-                todo.setDeadline(newDate);
-            });
-
-            todoRepository.saveAll(todos);
+            var transaction = new TransactionTemplate(transactionManager);
+            int threadCount = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            int contactCount = CONTACTS * scale;
+            int todoCount = TODOS * scale;
+            // The dates are relative to the reference date, deadlines must be
+            // in the future so it cannot be in the past
+            var reference = referenceDate.isBlank() ? LocalDate.now() : LocalDate.parse(referenceDate);
+            var seeds = new SplittableRandom(seed);
+            var contactSeeds = seeds.split();
+            var todoSeeds = seeds.split();
+
+            logger.info("Generating demo data with scale {}, seed {} and reference date {} on {} threads", scale,
+                    seed, reference, threadCount);
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                // Ids of the contacts by their index, todo n can be assigned
+                // only to contact n so that assignments are unique
+                var contactIds = new int[contactCount];
+
+                logger.info("... generating {} Contact entities...", contactCount);
+                ChunkGenerator<Contact> contacts = (chunkSeed, count) -> createContacts(count, chunkSeed, reference);
+                run(executor, threadCount, "Contact", contactCount, contactSeeds, contacts, (offset, chunk) -> {
+                    transaction.executeWithoutResult(status -> contactRepository.saveAll(chunk));
+                    for (int i = 0; i < chunk.size(); i++) {
+                        contactIds[offset + i] = chunk.get(i).getId();
+                    }
+                });
+
+                logger.info("... generating {} Todo entities...", todoCount);
+                ChunkGenerator<Todo> todos = (chunkSeed, count) -> createTodos(count, chunkSeed, reference);
+                run(executor, threadCount, "Todo", todoCount, todoSeeds, todos, (offset, chunk) -> {
+                    transaction.executeWithoutResult(status -> {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            var todo = chunk.get(i);
+                            if (todo.getAssigned() != null) {
+                                int index = offset + i;
+                                todo.setAssigned(index < contactCount
+                                        ? contactRepository.getReferenceById(contactIds[index])
+                                        : null);
+                            }
+                        }
+                        todoRepository.saveAll(chunk);
+                    });
+                });
+            } finally {
+                executor.shutdownNow();
+            }
+            // The web server is already up, statistics and counts built from
+            // a partial data set must not be kept
+            statsService.invalidate();
+            contactService.invalidateCounts();
 
             logger.info("Generated demo data");
         };
     }
 
+    private interface ChunkGenerator<T> {
+        List<T> create(int chunkSeed, int count);
+    }
+
+    private interface ChunkWriter<T> {
+        void write(int offset, List<T> chunk);
+    }
+
+    // Generate the chunks of the given number of rows in parallel, a bounded
+    // number ahead of the writer, and write them in order so that the ids are
+    // assigned in the same order on every run. Reports the throughput.
+    private <T> void run(ExecutorService executor, int threadCount, String entity, int rows, SplittableRandom seeds,
+            ChunkGenerator<T> generator, ChunkWriter<T> writer) throws InterruptedException, ExecutionException {
+        long start = System.nanoTime();
+        int chunks = (rows + chunkSize - 1) / chunkSize;
+        Deque<Future<List<T>>> pending = new ArrayDeque<>();
+        int next = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            while (next < chunks && pending.size() < 2 * threadCount) {
+                int count = Math.min(chunkSize, rows - next * chunkSize);
+                // The seeds are drawn in chunk order on this thread
+                int nextSeed = seeds.nextInt();
+                pending.add(executor.submit(() -> generator.create(nextSeed, count)));
+                next++;
+            }
+            writer.write(chunk * chunkSize, pending.poll().get());
+        }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("... inserted {} {} entities in {} ms ({} rows/s)", rows, entity, millis, rows * 1000L / millis);
+    }
+
+    private List<Contact> createContacts(int count, int chunkSeed, LocalDate reference) {
+        var contactGenerator = new ExampleDataGenerator<>(Contact.class, reference.atStartOfDay());
+        contactGenerator.setData(Contact::setFirstName, DataType.FIRST_NAME);
+        contactGenerator.setData(Contact::setLastName, DataType.LAST_NAME);
+        contactGenerator.setData(Contact::setEmail, DataType.EMAIL);
+        contactGenerator.setData(Contact::setDate, DataType.DATE_LAST_1_YEAR);
+
+        var contacts = contactGenerator.create(count, chunkSeed);
+        contacts.forEach(contact -> {
+            var date = contact.getDate();
+            var newDate = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            contact.setDate(newDate);
+        });
+        return contacts;
+    }
+
+    // Todos to be assigned get a placeholder contact, the actual contact is
+    // resolved by the caller
+    private List<Todo> createTodos(int count, int chunkSeed, LocalDate reference) {
+        var todoGenerator = new ExampleDataGenerator<>(Todo.class, reference.atStartOfDay());
+        todoGenerator.setData(Todo::setTask, DataType.TWO_WORDS);
+        todoGenerator.setData(Todo::setDescription, DataType.SENTENCE);
+        todoGenerator.setData(Todo::setDone, DataType.BOOLEAN_10_90);
+
+        Random rand = new Random(chunkSeed);
+        var placeholder = new Contact();
+        var todos = todoGenerator.create(count, chunkSeed);
+        todos.forEach(todo -> {
+            var deadLine = reference.plusDays(1 + rand.nextInt(7));
+            todo.setDeadline(deadLine.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY)));
+            // Capped to the maximum priority, large data sets do hit the tail
+            int prio = Math.min(5, (int) Math.floor(Math.abs(rand.nextGaussian()) * 2));
+            if (prio > 0) {
+                todo.setPriority(prio);
+            }
+            if (prio > 2 || todo.isDone()) {
+                todo.setAssigned(placeholder);
+            }
+        });
+        return todos;
+    }
 }
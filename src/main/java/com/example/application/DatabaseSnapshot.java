@@ -0,0 +1,83 @@
+package com.example.application;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import com.vaadin.flow.spring.annotation.SpringComponent;
+
+/**
+ * Restores the H2 database from a script file written with the H2 SCRIPT
+ * command, which is much faster than creating the schema and generating the
+ * demo data. A snapshot is written after startup when an export file is
+ * configured, see the fast-startup profile.
+ */
+@SpringComponent
+public class DatabaseSnapshot {
+
+    Logger logger = LoggerFactory.getLogger(DatabaseSnapshot.class);
+
+    private final DataSource dataSource;
+
+    @Value("${com.example.application.startup.snapshot:}")
+    private String snapshot;
+
+    @Value("${com.example.application.startup.snapshot-export:}")
+    private String export;
+
+    public DatabaseSnapshot(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Check whether the database is to be restored from a snapshot.
+     *
+     * @return true if a snapshot file is configured
+     */
+    public boolean isEnabled() {
+        return !snapshot.isBlank();
+    }
+
+    /**
+     * Restore the database from the configured snapshot file.
+     */
+    public void restore() {
+        var file = Path.of(snapshot);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalStateException("Database snapshot " + file.toAbsolutePath() + " not found");
+        }
+        long start = System.nanoTime();
+        execute("RUNSCRIPT FROM " + quote(file));
+        logger.info("Restored database from {} in {} ms", file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void export() {
+        if (export.isBlank()) {
+            return;
+        }
+        var file = Path.of(export);
+        execute("SCRIPT TO " + quote(file));
+        logger.info("Wrote database snapshot to {}", file.toAbsolutePath());
+    }
+
+    private void execute(String sql) {
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to execute " + sql, e);
+        }
+    }
+
+    private static String quote(Path file) {
+        return "'" + file.toString().replace("'", "''") + "'";
+    }
+}
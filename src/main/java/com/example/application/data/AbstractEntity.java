@@ -27,6 +27,10 @@ public abstract class AbstractEntity {
         this.id = id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     @Override
     public int hashCode() {
         if (id != null) {
@@ -0,0 +1,33 @@
+package com.example.application.data;
+
+import jakarta.persistence.Entity;
+
+/**
+ * Monotonically increasing sequence of todo changes. The single row is
+ * created at startup and locked by the writing transaction, so sequence values
+ * become visible in the same order as they are assigned.
+ */
+@Entity
+public class ChangeSequence extends AbstractEntity {
+
+    private long seqValue = 0;
+
+    // Tombstones up to this value have been deleted
+    private long prunedValue = 0;
+
+    public long getValue() {
+        return seqValue;
+    }
+
+    public void setValue(long value) {
+        this.seqValue = value;
+    }
+
+    public long getPrunedValue() {
+        return prunedValue;
+    }
+
+    public void setPrunedValue(long prunedValue) {
+        this.prunedValue = prunedValue;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.application.data;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import jakarta.persistence.LockModeType;
+
+public interface ChangeSequenceRepository extends JpaRepository<ChangeSequence, Integer> {
+
+    /**
+     * Find the sequence rows and lock them for update until the end of the
+     * transaction. Normally there is only one row.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ChangeSequence s order by s.id")
+    public List<ChangeSequence> lockAll();
+
+    public Optional<ChangeSequence> findFirstByOrderByIdAsc();
+}
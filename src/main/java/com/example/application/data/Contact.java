@@ -1,8 +1,16 @@
 package com.example.application.data;
 
 import java.time.LocalDate;
+import java.util.Locale;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -10,6 +18,7 @@ import jakarta.validation.constraints.NotNull;
 import dev.hilla.Nonnull;
 
 @Entity
+@Table(indexes = @Index(name = "idx_contact_email_lower", columnList = "email_lower"))
 public class Contact extends AbstractEntity {
 
     @NotEmpty
@@ -25,10 +34,21 @@ public class Contact extends AbstractEntity {
     @Nonnull
     private String email = "";
 
+    // Lower case copy of the email for indexed prefix search
+    @JsonIgnore
+    @Column(name = "email_lower")
+    private String emailLower;
+
     @Nonnull
     @NotNull
     private LocalDate date;
 
+    @PrePersist
+    @PreUpdate
+    private void normalizeEmail() {
+        emailLower = email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
     @Override
     public String toString() {
         return firstName + " " + lastName;
@@ -1,12 +1,29 @@
 package com.example.application.data;
 
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface ContactRepository extends JpaRepository<Contact, Integer>, JpaSpecificationExecutor<User> {
+public interface ContactRepository extends JpaRepository<Contact, Integer>, JpaSpecificationExecutor<Contact> {
 
-    public Page<Contact> findAllByEmailContainsIgnoreCase(String email, Pageable pageable);
+    /**
+     * Find the contacts whose e-mail starts with the given lower case prefix,
+     * uses the index of the normalized e-mail column. No count query is issued.
+     */
+    public Slice<Contact> findSliceByEmailLowerStartingWith(String prefix, Pageable pageable);
+
+    public long countByEmailLowerStartingWith(String prefix);
+
+    /**
+     * Scroll the contacts whose e-mail starts with the given lower case prefix
+     * using keyset pagination, no count query is issued.
+     */
+    public Window<Contact> findByEmailLowerStartingWith(String prefix, ScrollPosition position, Sort sort,
+            Limit limit);
 
 }
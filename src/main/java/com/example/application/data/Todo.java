@@ -5,7 +5,11 @@ import java.time.LocalDate;
 import com.example.application.validators.CustomDateConstraint;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -13,8 +17,12 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Todo.ASSIGNED_CONSTRAINT, columnNames = "assigned_id"))
 public class Todo extends AbstractEntity {
 
+    // Name of the unique constraint of the assigned column
+    public static final String ASSIGNED_CONSTRAINT = "uk_todo_assigned";
+
     private boolean done = false;
 
     @NotBlank
@@ -31,7 +39,11 @@ public class Todo extends AbstractEntity {
     @CustomDateConstraint
     private LocalDate deadline;
 
-    @ManyToOne
+    // Contact can be assigned to one Todo only, the unique constraint keeps
+    // this consistent also with concurrent saves. The contact is fetched
+    // only by the queries that need it, see TodoRepository.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assigned_id")
     private Contact assigned;
 
     public Todo() {
@@ -0,0 +1,48 @@
+package com.example.application.data;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Latest change of a todo, used for delta sync. There is one row per todo,
+ * removed todos are kept as tombstones.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_todo_change_log_seq", columnList = "seq"))
+public class TodoChangeLog extends AbstractEntity {
+
+    @Column(unique = true, nullable = false)
+    private Integer todoId;
+
+    // Value of the change sequence when the todo was last changed
+    @Column(nullable = false)
+    private long seq;
+
+    private boolean deleted = false;
+
+    public Integer getTodoId() {
+        return todoId;
+    }
+
+    public void setTodoId(Integer todoId) {
+        this.todoId = todoId;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
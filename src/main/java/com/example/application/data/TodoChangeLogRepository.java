@@ -0,0 +1,20 @@
+package com.example.application.data;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface TodoChangeLogRepository extends JpaRepository<TodoChangeLog, Integer> {
+
+    public List<TodoChangeLog> findAllByTodoIdIn(Collection<Integer> todoIds);
+
+    public List<TodoChangeLog> findAllBySeqGreaterThan(long seq);
+
+    @Modifying
+    @Query("delete from TodoChangeLog l where l.deleted = true and l.seq <= :seq")
+    public int deleteTombstones(@Param("seq") long seq);
+}
@@ -1,8 +1,118 @@
 package com.example.application.data;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface TodoRepository
+        extends JpaRepository<Todo, Integer>, JpaSpecificationExecutor<Todo>, TodoRepositoryCustom {
+
+    // The queries returning todos to the client fetch the assigned contact
+    // in the same statement, the other queries only use its id
+
+    @Override
+    @EntityGraph(attributePaths = "assigned")
+    public List<Todo> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "assigned")
+    public Optional<Todo> findById(Integer id);
+
+    @Override
+    @EntityGraph(attributePaths = "assigned")
+    public List<Todo> findAllById(Iterable<Integer> ids);
+
+    @Override
+    @EntityGraph(attributePaths = "assigned")
+    public Page<Todo> findAll(Specification<Todo> spec, Pageable pageable);
+
+    /**
+     * Projection for the number of todos per priority
+     */
+    public interface PriorityCount {
+        Integer getPriority();
+
+        long getCount();
+    }
+
+    /**
+     * Projection for the number of todos per deadline
+     */
+    public interface DeadlineCount {
+        LocalDate getDeadline();
+
+        long getCount();
+    }
+
+    /**
+     * Projection for the version of a todo and the fields counted in the
+     * todo statistics
+     */
+    public interface TodoState {
+        Integer getId();
+
+        int getVersion();
+
+        Integer getPriority();
+
+        LocalDate getDeadline();
+
+        boolean isAssigned();
+
+        boolean isDone();
+    }
+
+    @Query("select t.priority as priority, count(t) as count from Todo t where t.priority is not null group by t.priority")
+    public List<PriorityCount> countByPriority();
+
+    @Query("select t.deadline as deadline, count(t) as count from Todo t where t.deadline is not null group by t.deadline")
+    public List<DeadlineCount> countByDeadline();
+
+    @Query("select count(t) from Todo t where t.assigned is not null")
+    public long countAssigned();
+
+    @Query("select count(t) from Todo t where t.done = true")
+    public long countDone();
 
-public interface TodoRepository extends JpaRepository<Todo, Integer>, JpaSpecificationExecutor<Todo> {
+    /**
+     * Check if the contact is assigned to some other todo than the given one.
+     * Uses the unique index of the assigned column. Pending changes are not
+     * flushed for the check, so a constraint violation can only happen in the
+     * explicit flush of the caller.
+     *
+     * @param contactId the id of the contact
+     * @param todoId    the id of the todo to exclude, null for a new todo
+     * @return true if the contact is already assigned
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select case when count(t) > 0 then true else false end from Todo t where t.assigned.id = :contactId and (:todoId is null or t.id <> :todoId)")
+    public boolean isAssigneeOccupied(@Param("contactId") Integer contactId, @Param("todoId") Integer todoId);
 
+    /**
+     * Lock the todos with the given ids for update and return their state.
+     *
+     * @param ids the ids of the todos
+     * @return the versions and counted fields of the existing todos
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.id as id, t.version as version, t.priority as priority, t.deadline as deadline, "
+            + "case when t.assigned is null then false else true end as assigned, t.done as done "
+            + "from Todo t where t.id in :ids")
+    public List<TodoState> lockStates(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,39 @@
+package com.example.application.data;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Queries of {@link TodoRepository} that are built at runtime.
+ */
+public interface TodoRepositoryCustom {
+
+    /**
+     * Update the given attributes of a todo with a single statement, without
+     * loading the todo. The version is incremented.
+     *
+     * @param id      the id of the todo
+     * @param version the expected version, null to update any version
+     * @param values  the new values by attribute name
+     * @return the state of the todo before the update, empty if the todo does
+     *         not exist or the version does not match
+     */
+    Optional<Todo> compareAndSet(Integer id, Integer version, Map<String, Object> values);
+
+    /**
+     * Find a page of todo summaries, selecting only the summary columns and
+     * the name columns of the assignee instead of the entities. The type must
+     * have a constructor taking the id, version, task, description, priority,
+     * deadline, done, assignee id, assignee first name and assignee last name.
+     *
+     * @param spec     the condition of the todos
+     * @param pageable the page and the sort order
+     * @param type     the summary type
+     * @return the page of summaries
+     */
+    <T> Page<T> findSummaries(Specification<Todo> spec, Pageable pageable, Class<T> type);
+}
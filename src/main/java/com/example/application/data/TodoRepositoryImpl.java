@@ -0,0 +1,102 @@
+package com.example.application.data;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.JoinType;
+
+class TodoRepositoryImpl implements TodoRepositoryCustom {
+
+    // Attributes that can be updated, the column names are the same
+    private static final Set<String> UPDATABLE = Set.of("task", "description", "priority", "deadline", "done");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // The H2 data change delta table returns the rows as they were before the
+    // update, so the previous state comes with the same statement
+    @Override
+    public Optional<Todo> compareAndSet(Integer id, Integer version, Map<String, Object> values) {
+        var assignments = new StringBuilder();
+        var parameters = new HashMap<String, Object>();
+        values.forEach((attribute, value) -> {
+            if (!UPDATABLE.contains(attribute)) {
+                throw new IllegalArgumentException("Attribute " + attribute + " cannot be updated");
+            }
+            if (value == null) {
+                assignments.append(attribute).append(" = null, ");
+            } else {
+                assignments.append(attribute).append(" = :").append(attribute).append(", ");
+                parameters.put(attribute, value);
+            }
+        });
+        var sql = "select task, description, priority, deadline, assigned_id, done from old table (update todo set "
+                + assignments + "version = version + 1 where id = :id"
+                + (version != null ? " and version = :version" : "") + ")";
+        parameters.put("id", id);
+        if (version != null) {
+            parameters.put("version", version);
+        }
+
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        query.addScalar("task", String.class).addScalar("description", String.class)
+                .addScalar("priority", Integer.class).addScalar("deadline", LocalDate.class)
+                .addScalar("assigned_id", Integer.class).addScalar("done", Boolean.class);
+        for (var parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        var row = (Object[]) rows.get(0);
+        var before = new Todo((String) row[0]);
+        before.setDescription((String) row[1]);
+        before.setPriority((Integer) row[2]);
+        before.setDeadline((LocalDate) row[3]);
+        before.setAssigned(row[4] == null ? null : entityManager.getReference(Contact.class, row[4]));
+        before.setDone((Boolean) row[5]);
+        return Optional.of(before);
+    }
+
+    @Override
+    public <T> Page<T> findSummaries(Specification<Todo> spec, Pageable pageable, Class<T> type) {
+        var builder = entityManager.getCriteriaBuilder();
+        var query = builder.createQuery(type);
+        var root = query.from(Todo.class);
+        var assigned = root.join("assigned", JoinType.LEFT);
+        query.select(builder.construct(type, root.get("id"), root.get("version"), root.get("task"),
+                root.get("description"), root.get("priority"), root.get("deadline"), root.get("done"),
+                assigned.get("id"), assigned.get("firstName"), assigned.get("lastName")));
+        var where = spec.toPredicate(root, query, builder);
+        if (where != null) {
+            query.where(where);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        var content = entityManager.createQuery(query).setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize()).getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            var countQuery = builder.createQuery(Long.class);
+            var countRoot = countQuery.from(Todo.class);
+            var countWhere = spec.toPredicate(countRoot, countQuery, builder);
+            if (countWhere != null) {
+                countQuery.where(countWhere);
+            }
+            return entityManager.createQuery(countQuery.select(builder.count(countRoot))).getSingleResult();
+        });
+    }
+}
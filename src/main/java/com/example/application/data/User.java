@@ -17,6 +17,7 @@ import java.util.Set;
 @Table(name = "application_user")
 public class User extends AbstractEntity {
 
+    @Column(unique = true)
     private String username;
     private String name;
     @JsonIgnore
@@ -1,10 +1,61 @@
 package com.example.application.data;
 
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
 
+    /**
+     * Projection of the user without the profile picture
+     */
+    public interface UserAccount {
+        Integer getId();
+
+        int getVersion();
+
+        String getUsername();
+
+        String getName();
+
+        String getHashedPassword();
+    }
+
     User findByUsername(String username);
+
+    /**
+     * Find the user without loading the profile picture.
+     */
+    Optional<UserAccount> findAccountByUsername(String username);
+
+    @Query("select r from User u join u.roles r where u.username = :username")
+    List<Role> findRolesByUsername(@Param("username") String username);
+
+    @Query("select u.profilePicture from User u where u.username = :username")
+    Optional<byte[]> findProfilePictureByUsername(@Param("username") String username);
+
+    /**
+     * Check whether the user has a profile picture, without loading it.
+     */
+    @Query("select case when count(u) > 0 then true else false end from User u"
+            + " where u.username = :username and u.profilePicture is not null")
+    boolean hasProfilePicture(@Param("username") String username);
+
+    /**
+     * Update only the password hash of the user, without loading the user and
+     * its profile picture. The version is incremented as an entity update
+     * would do.
+     *
+     * @return the number of updated users
+     */
+    @Modifying
+    @Query("update User u set u.hashedPassword = :hashedPassword, u.version = u.version + 1"
+            + " where u.username = :username")
+    int updateHashedPassword(@Param("username") String username, @Param("hashedPassword") String hashedPassword);
 }
@@ -0,0 +1,89 @@
+package com.example.application.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Bulkhead for the password hashing of the delegate: the hashing runs on a
+ * dedicated bounded thread pool. A login storm then only uses the threads of
+ * this pool for the CPU heavy hashing, and when the queue is full further
+ * attempts are rejected immediately instead of piling up.
+ * <p>
+ * This bounds the concurrency, it does not make the calls asynchronous. The
+ * calling request thread waits for the result, as the {@link PasswordEncoder}
+ * contract is synchronous. The requests run on virtual threads (Java 21 with
+ * spring.threads.virtual.enabled), and a virtual thread that waits for the
+ * result is unmounted, so waiting logins do not hold platform threads. On
+ * platform request threads each waiting login would hold its thread. The
+ * latency of a login is the queueing time plus the hashing time.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize) {
+        this.delegate = delegate;
+        var count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    var thread = new Thread(runnable, "password-encoder-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Get the number of password checks waiting for a thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new AuthenticationServiceException("Too many concurrent login attempts, try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted while checking password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AuthenticationServiceException("Password check failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.application.security;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.application.data.Role;
+
+/**
+ * Resolves the roles of the current user as an {@link EnumSet}, which is a bit
+ * set, so role checks are constant time and need no string comparisons. For
+ * JWT requests the set is resolved once, see {@link RolesFilter}.
+ */
+public final class Roles {
+
+    private static final String PREFIX = "ROLE_";
+
+    // Roles by their authority name, e.g. ROLE_ADMIN
+    private static final Map<String, Role> BY_AUTHORITY = Arrays.stream(Role.values())
+            .collect(Collectors.toUnmodifiableMap(role -> PREFIX + role.name(), Function.identity()));
+
+    private Roles() {
+    }
+
+    /**
+     * Get the roles of the current user.
+     *
+     * @return the roles, empty if not authenticated
+     */
+    public static EnumSet<Role> current() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null) {
+            return EnumSet.noneOf(Role.class);
+        }
+        if (auth instanceof RolesAuthenticationToken token) {
+            return token.getRoles().clone();
+        }
+        return of(auth.getAuthorities());
+    }
+
+    /**
+     * Get the roles matching the authorities, other authorities are ignored.
+     *
+     * @param authorities the granted authorities
+     * @return the roles
+     */
+    public static EnumSet<Role> of(Collection<? extends GrantedAuthority> authorities) {
+        var roles = EnumSet.noneOf(Role.class);
+        for (GrantedAuthority authority : authorities) {
+            var name = authority.getAuthority();
+            var role = name == null ? null : BY_AUTHORITY.get(name);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
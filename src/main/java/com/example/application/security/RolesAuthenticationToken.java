@@ -0,0 +1,26 @@
+package com.example.application.security;
+
+import java.util.EnumSet;
+
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import com.example.application.data.Role;
+
+/**
+ * JWT authentication that carries the roles resolved from its authorities, so
+ * they are resolved once per request instead of on every role check.
+ */
+final class RolesAuthenticationToken extends JwtAuthenticationToken {
+
+    private final EnumSet<Role> roles;
+
+    RolesAuthenticationToken(JwtAuthenticationToken authentication) {
+        super(authentication.getToken(), authentication.getAuthorities(), authentication.getName());
+        setDetails(authentication.getDetails());
+        this.roles = Roles.of(getAuthorities());
+    }
+
+    EnumSet<Role> getRoles() {
+        return roles;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.application.security;
+
+import java.io.IOException;
+
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Replaces the JWT authentication decoded for the request with a
+ * {@link RolesAuthenticationToken}, see {@link Roles#current()}.
+ */
+class RolesFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var context = SecurityContextHolder.getContext();
+        if (context.getAuthentication() instanceof JwtAuthenticationToken authentication
+                && !(authentication instanceof RolesAuthenticationToken)) {
+            context.setAuthentication(new RolesAuthenticationToken(authentication));
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -4,6 +4,7 @@ import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -12,7 +13,10 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.JwsAlgorithms;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
 
@@ -26,9 +30,29 @@ public class SecurityConfig extends VaadinWebSecurity {
     @Value("${com.example.application.app.secret}")
     private String authSecret;
 
+    // Target bcrypt cost, existing hashes with a lower cost are re-hashed on
+    // successful login
+    @Value("${com.example.application.security.bcrypt-strength:10}")
+    private int bcryptStrength;
+
+    @Value("${com.example.application.security.password-threads:0}")
+    private int passwordThreads;
+
+    @Value("${com.example.application.security.password-queue-size:100}")
+    private int passwordQueueSize;
+
+    // Port of the actuator endpoints, see management.server.*
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Password checks run on a bounded pool instead of the request threads
+        var threads = passwordThreads > 0 ? passwordThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), threads, passwordQueueSize);
     }
 
     @Override
@@ -51,6 +75,18 @@ public class SecurityConfig extends VaadinWebSecurity {
                         new AntPathRequestMatcher("/line-awesome/**/*.svg"))
                 .permitAll());
 
+        // Health and metrics for the monitoring are open only on the management
+        // port, which is bound to an internal interface. On the server port
+        // the actuator paths would be open to everyone, so that is refused.
+        if (managementPort > 0 && managementPort == serverPort) {
+            throw new IllegalStateException("management.server.port must differ from server.port " + serverPort
+                    + ", the actuator endpoints are served without authentication");
+        }
+        RequestMatcher managementPortRequest = request -> request.getLocalPort() == managementPort;
+        http.authorizeHttpRequests(authorize -> authorize
+                .requestMatchers(new AndRequestMatcher(EndpointRequest.toAnyEndpoint(), managementPortRequest))
+                .permitAll());
+
         // Configure your static resources with public access before calling
         // super.configure(HttpSecurity) as it adds final anyRequest matcher
         super.configure(http);
@@ -66,6 +102,9 @@ public class SecurityConfig extends VaadinWebSecurity {
                 new SecretKeySpec(Base64.getDecoder().decode(authSecret),
                         JwsAlgorithms.HS256),
                 "com.example.application");
+
+        // Resolve the roles of the decoded JWT once for the request
+        http.addFilterBefore(new RolesFilter(), AuthorizationFilter.class);
     }
 
     // @Bean
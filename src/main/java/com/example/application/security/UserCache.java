@@ -0,0 +1,123 @@
+package com.example.application.security;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.application.data.Role;
+import com.example.application.data.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of user accounts and roles keyed by username, so that
+ * authenticated requests do not need to query the database. Entries expire
+ * after the configured time and are invalidated when users are changed via
+ * {@link com.example.application.services.UserService}. Unknown usernames
+ * are remembered in a separate small cache with a short expiry, so that
+ * lookups of random usernames do not evict the cached users.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    /**
+     * Cached user without the profile picture, hasPicture tells whether there
+     * is one.
+     */
+    public record CachedUser(Integer id, int version, String username, String name, String hashedPassword,
+            List<Role> roles, boolean hasPicture) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<String, CachedUser> cache;
+    // Usernames without an account
+    private final Cache<String, Boolean> unknown;
+
+    public UserCache(UserRepository userRepository,
+            @Value("${com.example.application.user-cache.max-size:1000}") long maxSize,
+            @Value("${com.example.application.user-cache.ttl:5m}") Duration ttl,
+            @Value("${com.example.application.user-cache.unknown-max-size:100}") long unknownMaxSize,
+            @Value("${com.example.application.user-cache.unknown-ttl:10s}") Duration unknownTtl) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(ttl).recordStats().build();
+        this.unknown = Caffeine.newBuilder().maximumSize(unknownMaxSize).expireAfterWrite(unknownTtl)
+                .recordStats().build();
+    }
+
+    /**
+     * Get the user by username, loading it from the database on cache miss.
+     *
+     * @param username the username
+     * @return the user, empty if there is no such user
+     */
+    public Optional<CachedUser> get(String username) {
+        return Optional.ofNullable(cache.get(username, this::load));
+    }
+
+    /**
+     * Discard the cached user.
+     *
+     * @param username the username
+     */
+    public void invalidate(String username) {
+        cache.invalidate(username);
+        unknown.invalidate(username);
+    }
+
+    /**
+     * Discard all cached users.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        unknown.invalidateAll();
+    }
+
+    /**
+     * Get the hit and miss statistics of the cache.
+     *
+     * @return the statistics
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Get the underlying cache, e.g. for binding metrics.
+     *
+     * @return the cache
+     */
+    public Cache<String, CachedUser> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+        CaffeineCacheMetrics.monitor(registry, unknown, "users.unknown");
+    }
+
+    // Returns null for unknown users, which are not put in the user cache
+    private CachedUser load(String username) {
+        if (unknown.getIfPresent(username) != null) {
+            return null;
+        }
+        var user = userRepository.findAccountByUsername(username)
+                .map(account -> new CachedUser(account.getId(), account.getVersion(), account.getUsername(),
+                        account.getName(), account.getHashedPassword(),
+                        List.copyOf(userRepository.findRolesByUsername(username)),
+                        userRepository.hasProfilePicture(username)))
+                .orElse(null);
+        if (user == null) {
+            unknown.put(username, Boolean.TRUE);
+        }
+        return user;
+    }
+}
@@ -1,42 +1,53 @@
 package com.example.application.security;
 
-import com.example.application.data.User;
-import com.example.application.data.UserRepository;
+import com.example.application.data.Role;
+import com.example.application.services.UserService;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserService userService;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    // The user service is created on the first password upgrade
+    public UserDetailsServiceImpl(UserCache userCache, @Lazy UserService userService) {
+        this.userCache = userCache;
+        this.userService = userService;
     }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
-            throw new UsernameNotFoundException("No user present with username: " + username);
-        } else {
-            return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getHashedPassword(),
-                    getAuthorities(user));
-        }
+        var user = userCache.get(username)
+                .orElseThrow(() -> new UsernameNotFoundException("No user present with username: " + username));
+        return new org.springframework.security.core.userdetails.User(user.username(), user.hashedPassword(),
+                getAuthorities(user.roles()));
     }
 
-    private static List<GrantedAuthority> getAuthorities(User user) {
-        return user.getRoles().stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+    /**
+     * Store the password re-hashed with the current target cost, called by
+     * Spring Security after a successful login.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userService.updatePassword(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword)
+                .build();
+    }
+
+    private static List<GrantedAuthority> getAuthorities(List<Role> roles) {
+        return roles.stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                 .collect(Collectors.toList());
 
     }
 
-}
\ No newline at end of file
+}
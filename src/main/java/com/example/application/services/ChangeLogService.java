@@ -0,0 +1,128 @@
+package com.example.application.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.application.data.ChangeSequence;
+import com.example.application.data.ChangeSequenceRepository;
+import com.example.application.data.TodoChangeLog;
+import com.example.application.data.TodoChangeLogRepository;
+
+/**
+ * Records the latest change of each todo with a monotonically increasing
+ * sequence value, so that clients can fetch only the todos changed since the
+ * last value they have seen. Tombstones of removed todos are kept for the
+ * configured number of sequence values, clients with an older watermark get
+ * all todos instead of the changes.
+ */
+@Service
+public class ChangeLogService implements SmartInitializingSingleton {
+
+    private ChangeSequenceRepository sequenceRepository;
+    private TodoChangeLogRepository logRepository;
+    private TransactionTemplate transaction;
+
+    @Value("${com.example.application.changes.tombstone-retention:10000}")
+    private long tombstoneRetention;
+
+    public ChangeLogService(ChangeSequenceRepository sequenceRepository, TodoChangeLogRepository logRepository,
+            PlatformTransactionManager transactionManager) {
+        this.sequenceRepository = sequenceRepository;
+        this.logRepository = logRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Create the sequence row after the database has been initialized and
+    // before requests are served, so concurrent writers only lock it
+    @Override
+    public void afterSingletonsInstantiated() {
+        transaction.executeWithoutResult(status -> {
+            if (sequenceRepository.count() == 0L) {
+                sequenceRepository.save(new ChangeSequence());
+            }
+        });
+    }
+
+    /**
+     * Record changed todos in the current transaction. The sequence is locked
+     * until the transaction ends, so concurrent writers get their values in
+     * commit order and a reader never skips a change.
+     *
+     * @param upserted the ids of the saved todos
+     * @param deleted  the ids of the removed todos
+     */
+    @Transactional
+    public void record(Collection<Integer> upserted, Collection<Integer> deleted) {
+        if (upserted.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+        var sequence = sequenceRepository.lockAll().stream().findFirst()
+                .orElseThrow(() -> new IllegalStateException("The change sequence has not been created"));
+        var seq = sequence.getValue() + 1;
+        sequence.setValue(seq);
+        // Prune in steps of the retention so the delete runs rarely
+        if (seq - sequence.getPrunedValue() >= 2 * tombstoneRetention) {
+            sequence.setPrunedValue(seq - tombstoneRetention);
+            logRepository.deleteTombstones(sequence.getPrunedValue());
+        }
+
+        Map<Integer, TodoChangeLog> logs = new HashMap<>();
+        logRepository.findAllByTodoIdIn(Stream.concat(upserted.stream(), deleted.stream())
+                .collect(Collectors.toSet())).forEach(log -> logs.put(log.getTodoId(), log));
+        upserted.forEach(id -> update(logs, id, seq, false));
+        deleted.forEach(id -> update(logs, id, seq, true));
+        logRepository.saveAll(logs.values());
+    }
+
+    /**
+     * Get the current sequence value.
+     *
+     * @return the sequence value, 0 if nothing has been recorded
+     */
+    public long getWatermark() {
+        return sequenceRepository.findFirstByOrderByIdAsc().map(ChangeSequence::getValue).orElse(0L);
+    }
+
+    /**
+     * Check whether the removals after the watermark are still known. If not,
+     * the client has to replace its copy with all todos.
+     *
+     * @param watermark the sequence value seen by the client
+     * @return true if no tombstones after the watermark have been pruned
+     */
+    public boolean isRetained(long watermark) {
+        return watermark >= sequenceRepository.findFirstByOrderByIdAsc().map(ChangeSequence::getPrunedValue)
+                .orElse(0L);
+    }
+
+    /**
+     * Get the latest changes of the todos changed after the watermark.
+     *
+     * @param watermark the sequence value seen by the client
+     * @return the changes
+     */
+    public List<TodoChangeLog> changesSince(long watermark) {
+        return logRepository.findAllBySeqGreaterThan(watermark);
+    }
+
+    private void update(Map<Integer, TodoChangeLog> logs, Integer todoId, long seq, boolean deleted) {
+        var log = logs.computeIfAbsent(todoId, id -> {
+            var created = new TodoChangeLog();
+            created.setTodoId(id);
+            return created;
+        });
+        log.setSeq(seq);
+        log.setDeleted(deleted);
+    }
+}
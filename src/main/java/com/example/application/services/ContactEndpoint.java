@@ -7,6 +7,7 @@ import jakarta.annotation.security.RolesAllowed;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Window;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.application.data.Contact;
@@ -14,6 +15,7 @@ import com.vaadin.flow.server.auth.AnonymousAllowed;
 
 import dev.hilla.BrowserCallable;
 import dev.hilla.Nonnull;
+import dev.hilla.exception.EndpointException;
 
 /**
  * This class represents the endpoint for managing contacts.
@@ -24,6 +26,8 @@ import dev.hilla.Nonnull;
 public class ContactEndpoint {
 
     private ContactService contactService;
+    private LatencyInjector latencyInjector;
+    private RequestLogSampler logSampler;
     
     Logger logger = LoggerFactory.getLogger(ContactEndpoint.class);
 
@@ -32,33 +36,85 @@ public class ContactEndpoint {
         public List<@Nonnull Contact> content;
         @Nonnull
         public Long size;
+        // True if the size was served from the count cache
+        @Nonnull
+        public Boolean cached;
+    }
+
+    static class SliceResponse {
+        @Nonnull
+        public List<@Nonnull Contact> content;
+        // Continuation token for the next slice, null when there are no more
+        public String next;
     }
 
-    public ContactEndpoint(ContactService contactService) {
+    public ContactEndpoint(ContactService contactService, LatencyInjector latencyInjector,
+            RequestLogSampler logSampler) {
         this.contactService = contactService;
+        this.latencyInjector = latencyInjector;
+        this.logSampler = logSampler;
     }
 
     @Nonnull
     @Transactional
     public PageResponse getPage(int page, int pageSize, String filter, String direction) {
-        try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-        }
+        latencyInjector.inject("contact-page");
         var dbPage = contactService.getPage(page, pageSize, filter, direction);
+        var count = contactService.getCount(filter);
         var response = new PageResponse();
         response.content = dbPage.getContent();
-        response.size = dbPage.getTotalElements();
-        logger.info("Page "+page+" fetched with "+pageSize+"/"+response.size+" items");
+        response.size = count.value();
+        response.cached = count.cached();
+        if (logSampler.sample(logger)) {
+            logger.info("Page {} fetched with {}/{} items", page, pageSize, response.size);
+        }
         return response;
     }
     
+    /**
+     * Get a slice of contacts with keyset pagination. Unlike getPage this
+     * does not count the total number of contacts and the cost of deep slices
+     * does not grow with the offset, which suits large tables.
+     *
+     * @param cursor    the continuation token of the previous slice, null for the first
+     * @param pageSize  the maximum number of contacts
+     * @param filter    the e-mail prefix filter
+     * @param direction "asc" or "desc"
+     * @return the slice with the token for the next slice
+     */
+    @Nonnull
     @Transactional
-    public long getCount() {
+    public SliceResponse getSlice(String cursor, int pageSize, String filter, String direction) {
+        Window<Contact> window;
         try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-        } 
+            window = contactService.getSlice(cursor, pageSize, filter, direction);
+        } catch (IllegalArgumentException e) {
+            throw new EndpointException("Invalid cursor");
+        }
+        var response = new SliceResponse();
+        response.content = window.getContent();
+        response.next = contactService.encodeCursor(window);
+        if (logSampler.sample(logger)) {
+            logger.info("Slice fetched with {}/{} items", response.content.size(), pageSize);
+        }
+        return response;
+    }
+
+    /**
+     * Get the contacts with the given ids, e.g. the assignees of todo changes
+     * that the client does not know yet.
+     *
+     * @param ids the contact ids
+     * @return the contacts that exist
+     */
+    @Nonnull
+    public List<@Nonnull Contact> getContacts(@Nonnull List<@Nonnull Integer> ids) {
+        return contactService.getContacts(ids);
+    }
+
+    @Transactional
+    public long getCount() {
+        latencyInjector.inject("contact-count");
         return contactService.getCount();
     }
 
@@ -70,7 +126,7 @@ public class ContactEndpoint {
     public Contact saveContact(Contact contact) {
         // Only use the id of the company, we don't want to update anything else on
         // Company.
-        logger.info("Saving new contact: "+contact.getId());
+        logger.info("Saving new contact: {}", contact.getId());
         return contactService.saveContact(contact);
     }
 
@@ -79,7 +135,7 @@ public class ContactEndpoint {
     @RolesAllowed("ADMIN")
     @Transactional
     public void deleteContact(Integer contactId) {
-        logger.info("Deleting contact: "+contactId);
+        logger.info("Deleting contact: {}", contactId);
         contactService.deleteContact(contactId);
     }
 }
@@ -1,8 +1,21 @@
 package com.example.application.services;
 
-import org.springframework.data.domain.Page;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,17 +25,34 @@ import com.example.application.data.ContactRepository;
 @Service
 public class ContactService {
 
+    // Bound for the number of cached filter counts
+    private static final int MAX_CACHED_COUNTS = 1000;
+
+    /**
+     * Number of contacts matching a filter and whether it was served from
+     * the cache.
+     */
+    public record Count(long value, boolean cached) {
+    }
+
     private ContactRepository contactRepository;
+    private LatencyInjector latencyInjector;
 
-    public ContactService(ContactRepository contactRepository) {
+    // Counts per normalized filter, cleared when contacts change
+    private Map<String, Long> counts = new ConcurrentHashMap<>();
+    private long generation = 0;
+
+    public ContactService(ContactRepository contactRepository, LatencyInjector latencyInjector) {
         this.contactRepository = contactRepository;
+        this.latencyInjector = latencyInjector;
     }
 
-    public Page<Contact> getPage(int page, int pageSize, String filter, String direction) {
-        try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-        }
+    /**
+     * Get a page of contacts, the total count is not queried, see
+     * {@link #getCount(String)}.
+     */
+    public Slice<Contact> getPage(int page, int pageSize, String filter, String direction) {
+        latencyInjector.inject("contact-service-page");
         PageRequest request = null;
         if (direction == null) {
             request = PageRequest.of(page, pageSize);
@@ -31,20 +61,136 @@ public class ContactService {
         } else if (direction.equals("desc")) {
             request = PageRequest.of(page, pageSize, Sort.by("lastName", "firstName").descending());
         }
-        var dbPage = contactRepository.findAllByEmailContainsIgnoreCase(filter, request);
+        var dbPage = contactRepository.findSliceByEmailLowerStartingWith(normalize(filter), request);
         return dbPage;
     }
 
+    /**
+     * Get a slice of contacts using keyset pagination sorted by last name,
+     * first name and id. The cursor is the continuation token returned with
+     * the previous slice.
+     *
+     * @param cursor    the continuation token, null for the first slice
+     * @param pageSize  the maximum number of contacts
+     * @param filter    the e-mail prefix filter
+     * @param direction "asc" or "desc", ascending by default
+     * @return the window of contacts
+     */
+    public Window<Contact> getSlice(String cursor, int pageSize, String filter, String direction) {
+        var sort = Sort.by("lastName", "firstName", "id");
+        sort = "desc".equals(direction) ? sort.descending() : sort.ascending();
+        return contactRepository.findByEmailLowerStartingWith(normalize(filter), decodeCursor(cursor), sort,
+                Limit.of(pageSize));
+    }
+
+    /**
+     * Encode the position of the last contact in the window as an opaque
+     * continuation token.
+     *
+     * @param window the window of contacts
+     * @return the token, or null if there are no more contacts
+     */
+    public String encodeCursor(Window<Contact> window) {
+        if (window.isEmpty() || !window.hasNext()) {
+            return null;
+        }
+        var keys = ((KeysetScrollPosition) window.positionAt(window.size() - 1)).getKeys();
+        return encode(keys.get("lastName")) + "." + encode(keys.get("firstName")) + "." + keys.get("id");
+    }
+
+    private KeysetScrollPosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        var parts = cursor.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("lastName", decode(parts[0]));
+        keys.put("firstName", decode(parts[1]));
+        keys.put("id", Integer.valueOf(parts[2]));
+        return ScrollPosition.forward(keys);
+    }
+
+    // The filter is matched as a prefix of the lower case e-mail
+    private static String normalize(String filter) {
+        return filter == null ? "" : filter.toLowerCase(Locale.ROOT);
+    }
+
+    private static String encode(Object value) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the contacts with the given ids.
+     *
+     * @param ids the contact ids
+     * @return the contacts that exist
+     */
+    public List<Contact> getContacts(Collection<Integer> ids) {
+        return contactRepository.findAllById(ids);
+    }
+
     public long getCount() {
-        return contactRepository.count();
+        return getCount(null).value();
+    }
+
+    /**
+     * Get the number of contacts matching the filter. The count is cached per
+     * filter until contacts are changed.
+     *
+     * @param filter the e-mail prefix filter
+     * @return the count
+     */
+    public Count getCount(String filter) {
+        var key = normalize(filter);
+        var cached = counts.get(key);
+        if (cached != null) {
+            return new Count(cached, true);
+        }
+        long current;
+        synchronized (this) {
+            current = generation;
+        }
+        var value = contactRepository.countByEmailLowerStartingWith(key);
+        synchronized (this) {
+            // Do not cache if contacts were changed while counting
+            if (current == generation) {
+                if (counts.size() >= MAX_CACHED_COUNTS) {
+                    counts.clear();
+                }
+                counts.put(key, value);
+            }
+        }
+        return new Count(value, false);
     }
 
     public Contact saveContact(Contact contact) {
-        return contactRepository.save(contact);
+        var saved = contactRepository.save(contact);
+        AfterCommit.run(this::invalidateCounts);
+        return saved;
     }
 
     @Transactional
     public void deleteContact(Integer contactId) {
         contactRepository.deleteById(contactId);
+        AfterCommit.run(this::invalidateCounts);
+    }
+
+    /**
+     * Discard the cached counts. Called after contacts have been committed, a
+     * count running concurrently is then not cached, see
+     * {@link #getCount(String)}. Code that writes contacts without this
+     * service must call this when done.
+     */
+    public synchronized void invalidateCounts() {
+        generation++;
+        counts.clear();
     }
 }
@@ -0,0 +1,78 @@
+package com.example.application.services;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the calls of all {@code @BrowserCallable} endpoints and tracks the
+ * calls in progress. The meters are tagged with the endpoint class and method
+ * only, so the number of time series is bounded by the code, and they are
+ * created once per method so that a call only costs the timer update.
+ * Successful calls are counted in a few service level buckets instead of a
+ * full percentile histogram, failed calls only have the count, total and max.
+ */
+@Aspect
+@Component
+public class EndpointMetrics {
+
+    private final MeterRegistry registry;
+    private final Duration[] slo;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    private record Meters(Timer success, Timer error, AtomicInteger active) {
+    }
+
+    public EndpointMetrics(MeterRegistry registry,
+            @Value("${com.example.application.metrics.endpoint-slo:50ms,100ms,250ms,500ms,1s,2s}") Duration[] slo) {
+        this.registry = registry;
+        this.slo = slo;
+    }
+
+    @Around("@within(dev.hilla.BrowserCallable) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        var method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        var meters = this.meters.computeIfAbsent(method, this::create);
+        meters.active().incrementAndGet();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            var result = joinPoint.proceed();
+            success = true;
+            return result;
+        } finally {
+            meters.active().decrementAndGet();
+            (success ? meters.success() : meters.error()).record(System.nanoTime() - start,
+                    TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Meters create(Method method) {
+        var endpoint = method.getDeclaringClass().getSimpleName();
+        var inFlight = active.computeIfAbsent(endpoint, name -> registry.gauge("endpoint.calls.active",
+                Tags.of("endpoint", name), new AtomicInteger()));
+        var success = timer(endpoint, method.getName(), "success").serviceLevelObjectives(slo).register(registry);
+        var error = timer(endpoint, method.getName(), "error").register(registry);
+        return new Meters(success, error, inFlight);
+    }
+
+    private Timer.Builder timer(String endpoint, String method, String outcome) {
+        return Timer.builder("endpoint.calls").description("Endpoint method calls").tag("endpoint", endpoint)
+                .tag("method", method).tag("outcome", outcome);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.application.services;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import dev.hilla.BrowserCallable;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Records the request and response sizes of the endpoint calls, when the
+ * content length is known. The sizes are tagged with the endpoint only, calls
+ * to names that are not an endpoint are recorded as "other" so that arbitrary
+ * request paths do not create new time series.
+ */
+@Component
+public class EndpointPayloadMetrics extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/connect/";
+    // Bucket bounds of the sizes, 1 KB to 1 MB
+    private static final double[] SIZE_BUCKETS = { 1024, 10 * 1024, 100 * 1024, 1024 * 1024 };
+
+    private final ApplicationContext context;
+    private final MeterRegistry registry;
+    private final Map<String, DistributionSummary[]> summaries = new ConcurrentHashMap<>();
+    private volatile Set<String> endpoints;
+
+    public EndpointPayloadMetrics(ApplicationContext context, MeterRegistry registry) {
+        this.context = context;
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        var path = request.getRequestURI().substring(request.getContextPath().length() + PREFIX.length());
+        var slash = path.indexOf('/');
+        var name = slash < 0 ? path : path.substring(0, slash);
+        var meters = summaries.computeIfAbsent(getEndpoints().contains(name) ? name : "other", this::create);
+        if (request.getContentLengthLong() >= 0) {
+            meters[0].record(request.getContentLengthLong());
+        }
+        var length = response.getHeader("Content-Length");
+        if (length != null) {
+            meters[1].record(Long.parseLong(length));
+        }
+    }
+
+    // Names of the endpoints as used in the request path, resolved on first use
+    private Set<String> getEndpoints() {
+        if (endpoints == null) {
+            endpoints = Set.copyOf(context.getBeansWithAnnotation(BrowserCallable.class).values().stream()
+                    .map(bean -> AopUtils.getTargetClass(bean).getSimpleName()).toList());
+        }
+        return endpoints;
+    }
+
+    private DistributionSummary[] create(String endpoint) {
+        return new DistributionSummary[] { summary("endpoint.request.size", endpoint),
+                summary("endpoint.response.size", endpoint) };
+    }
+
+    private DistributionSummary summary(String name, String endpoint) {
+        return DistributionSummary.builder(name).baseUnit("bytes").tag("endpoint", endpoint)
+                .serviceLevelObjectives(SIZE_BUCKETS).register(registry);
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.application.services;
 
+import java.time.Duration;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +18,10 @@ import reactor.core.publisher.Flux;
 @BrowserCallable
 public class EventEndpoint {
 
+    // Maximum number of changes and time window of a change frame
+    private static final int FRAME_SIZE = 100;
+    private static final Duration FRAME_WINDOW = Duration.ofMillis(250);
+
     Logger logger = LoggerFactory.getLogger(EventEndpoint.class);
 
     private EventService service;
@@ -31,10 +38,44 @@ public class EventEndpoint {
         service.send(message);
     }
 
+    /**
+     * Subscribe to todo changes. The changes are sent in frames collected
+     * over a short window, so that bursts of saves result in few messages.
+     * The demand on the subscriber buffer of {@link EventService} is bounded
+     * to a frame, so its overflow policy applies to slow clients.
+     *
+     * @return the subscription of change frames
+     */
+    public EndpointSubscription<@Nonnull List<@Nonnull TodoChange>> getChangesCancellable() {
+        logger.info("Changes subscription has been requested");
+        var frames = service.join().limitRate(FRAME_SIZE).filter(message -> message.changes != null)
+                .flatMapIterable(message -> message.changes).bufferTimeout(FRAME_SIZE, FRAME_WINDOW);
+        return EndpointSubscription.of(frames, () -> {
+            logger.info("Changes subscription has been cancelled");
+        });
+    }
+
+    /**
+     * Subscribe to the messages for notifications. The todo changes are not
+     * included, they are sent with {@link #getChangesCancellable()}.
+     *
+     * @return the subscription of messages
+     */
     public EndpointSubscription<@Nonnull Message> getEventsCancellable() {
         logger.info("Events subscription has been requested");
-        return EndpointSubscription.of(service.join(), () -> {
+        return EndpointSubscription.of(service.join().map(EventEndpoint::withoutChanges), () -> {
             logger.info("Subscription has been cancelled");
         });
     }
+
+    private static Message withoutChanges(Message message) {
+        if (message.changes == null) {
+            return message;
+        }
+        var copy = new Message();
+        copy.data = message.data;
+        copy.id = message.id;
+        copy.messageType = message.messageType;
+        return copy;
+    }
 }
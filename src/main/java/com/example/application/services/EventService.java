@@ -1,16 +1,46 @@
 package com.example.application.services;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import dev.hilla.Nonnull;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Sinks;
-import reactor.core.publisher.Sinks.EmitFailureHandler;
-import reactor.core.publisher.Sinks.EmitResult;
-import reactor.core.publisher.Sinks.Many;
+import reactor.core.publisher.FluxSink;
 
+/**
+ * Broadcasts messages to all subscribers. Each subscriber has a bounded
+ * buffer, so a slow subscriber does not hold back the others, and what happens
+ * when the buffer is full is decided by the configured {@link OverflowPolicy}.
+ * The buffers are lock-free queues, so senders do not block each other or the
+ * subscribers: a message is offered to the buffers of the subscribers and each
+ * subscriber drains its own buffer as it has demand.
+ * The subscriber, sent, emitted and dropped counts are published as metrics,
+ * as well as the distributions of the buffer depth of the subscribers, sampled
+ * when a message is emitted, and of the dropped messages per subscriber,
+ * recorded when a subscription ends.
+ */
 @Service
-public class EventService {
+public class EventService implements MeterBinder {
+
+    Logger logger = LoggerFactory.getLogger(EventService.class);
 
     public enum MessageType {
         INFO, ERROR, EDITING
@@ -20,31 +50,263 @@ public class EventService {
         public @Nonnull String data;
         public @Nonnull Integer id = -1;
         public @Nonnull MessageType messageType = MessageType.INFO;
+        // Changes of todos, null for messages that are not about saved or
+        // removed todos
+        public List<@Nonnull TodoChange> changes;
+    }
+
+    /**
+     * What to do when the buffer of a subscriber is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest buffered message
+         */
+        DROP_OLDEST,
+        /**
+         * Replace the buffered message of the same todo and type, drop the
+         * oldest if there is none
+         */
+        COALESCE,
+        /**
+         * Terminate the subscription with an overflow error
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Buffer statistics of a subscriber.
+     */
+    public record SubscriberStats(int id, int queueDepth, long dropped) {
     }
 
-    private Many<Message> event;
-    private Flux<Message> bus;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
 
-    public EventService() {
-        event = Sinks.many().multicast().directBestEffort();
-        bus = event.asFlux().replay(1).autoConnect();
+    private final AtomicInteger subscriberIds = new AtomicInteger();
+    private final Map<Integer, Subscriber> subscribers = new ConcurrentHashMap<>();
+    // Last message is replayed to new subscribers
+    private final AtomicReference<Message> last = new AtomicReference<>();
+    private final AtomicLong droppedTotal = new AtomicLong();
+    private final AtomicLong sentTotal = new AtomicLong();
+    private final AtomicLong emittedTotal = new AtomicLong();
+    // Set when bound to a meter registry
+    private volatile DistributionSummary queueDepths;
+    private volatile DistributionSummary subscriberDrops;
+
+    public EventService(@Value("${com.example.application.events.buffer-size:256}") int bufferSize,
+            @Value("${com.example.application.events.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
     }
 
     public @Nonnull Flux<Message> join() {
-        return bus;
+        // The sink itself does not buffer, messages are only emitted when
+        // requested so that the subscriber buffer and its policy apply
+        return Flux.create(sink -> {
+            var subscriber = new Subscriber(subscriberIds.incrementAndGet(), sink);
+            subscribers.put(subscriber.id, subscriber);
+            sink.onRequest(n -> subscriber.drain());
+            sink.onDispose(() -> {
+                subscribers.remove(subscriber.id);
+                var drops = subscriberDrops;
+                if (drops != null) {
+                    drops.record(subscriber.dropped.get());
+                }
+            });
+            var message = last.get();
+            if (message != null) {
+                subscriber.offer(message);
+            }
+        }, FluxSink.OverflowStrategy.IGNORE);
     }
 
     /**
      * Submit a message.
-     * 
+     *
      * @param message the message to send
      */
     public void send(Message message) {
-        event.emitNext(message, emitFailureHandler());
+        last.set(message);
+        sentTotal.incrementAndGet();
+        subscribers.values().forEach(subscriber -> subscriber.offer(message));
+    }
+
+    /**
+     * Get the number of active subscribers.
+     *
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Get the total number of messages dropped because of full buffers.
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedCount() {
+        return droppedTotal.get();
+    }
+
+    /**
+     * Get the total number of messages emitted to subscribers.
+     *
+     * @return the number of emitted messages
+     */
+    public long getEmittedCount() {
+        return emittedTotal.get();
+    }
+
+    /**
+     * Get the buffer statistics of the active subscribers.
+     *
+     * @return the statistics per subscriber
+     */
+    public List<SubscriberStats> getSubscriberStats() {
+        return subscribers.values().stream()
+                .map(s -> new SubscriberStats(s.id, s.queueDepth(), s.dropped.get()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("events.subscribers", this, EventService::getSubscriberCount)
+                .description("Active subscribers").register(registry);
+        Gauge.builder("events.queue.depth.max", this,
+                service -> service.subscribers.values().stream().mapToInt(Subscriber::queueDepth).max().orElse(0))
+                .description("Deepest subscriber buffer").register(registry);
+        FunctionCounter.builder("events.sent", sentTotal, AtomicLong::get).description("Messages sent")
+                .register(registry);
+        FunctionCounter.builder("events.emitted", emittedTotal, AtomicLong::get)
+                .description("Messages emitted to subscribers").register(registry);
+        FunctionCounter.builder("events.dropped", droppedTotal, AtomicLong::get)
+                .description("Messages dropped because of full buffers").register(registry);
+        queueDepths = DistributionSummary.builder("events.subscriber.queue.depth")
+                .description("Buffer depth of a subscriber when a message is emitted").register(registry);
+        subscriberDrops = DistributionSummary.builder("events.subscriber.dropped")
+                .description("Messages dropped per subscriber, when the subscription ends").register(registry);
+    }
+
+    // Coalescing key of a message
+    private record Key(Integer id, MessageType messageType) {
+    }
+
+    // Buffer slot, a message or the key of the latest message of a todo when
+    // coalescing
+    private record Slot(Message message, Key key) {
     }
 
-    private EmitFailureHandler emitFailureHandler() {
-        return (signalType,
-                emitResult) -> emitResult == EmitResult.FAIL_NON_SERIALIZED;
+    private class Subscriber {
+        private final int id;
+        private final FluxSink<Message> sink;
+        private final Queue<Slot> queue = new ConcurrentLinkedQueue<>();
+        // Number of slots in the queue, may briefly exceed the buffer size by
+        // the number of concurrent senders
+        private final AtomicInteger size = new AtomicInteger();
+        // Latest message per key with a slot in the queue, COALESCE only
+        private final Map<Key, Message> latest = new ConcurrentHashMap<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean disconnected = false;
+
+        private Subscriber(int id, FluxSink<Message> sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+
+        private void offer(Message message) {
+            if (disconnected) {
+                return;
+            }
+            Slot slot;
+            if (overflowPolicy == OverflowPolicy.COALESCE && message.id != -1) {
+                var key = new Key(message.id, message.messageType);
+                if (latest.put(key, message) != null) {
+                    // Replaced the buffered message of the same todo, which
+                    // keeps its place in the queue
+                    dropped();
+                    drain();
+                    return;
+                }
+                slot = new Slot(null, key);
+            } else {
+                slot = new Slot(message, null);
+            }
+            if (size.incrementAndGet() > bufferSize) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    size.decrementAndGet();
+                    disconnect();
+                    return;
+                }
+                var oldest = queue.poll();
+                if (oldest != null) {
+                    size.decrementAndGet();
+                    if (oldest.key() != null) {
+                        latest.remove(oldest.key());
+                    }
+                    dropped();
+                }
+            }
+            queue.offer(slot);
+            drain();
+        }
+
+        private Message poll() {
+            Slot slot;
+            while ((slot = queue.poll()) != null) {
+                size.decrementAndGet();
+                if (slot.key() == null) {
+                    return slot.message();
+                }
+                var message = latest.remove(slot.key());
+                if (message != null) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        private int queueDepth() {
+            return size.get();
+        }
+
+        private void dropped() {
+            dropped.incrementAndGet();
+            droppedTotal.incrementAndGet();
+        }
+
+        private void disconnect() {
+            disconnected = true;
+            dropped();
+            subscribers.remove(id);
+            logger.warn("Subscriber {} disconnected, buffer of {} messages full", id, bufferSize);
+            sink.error(Exceptions.failWithOverflow());
+        }
+
+        // Emit buffered messages while there is demand, only one thread drains
+        // at a time and others just signal that there is more work
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!disconnected && !sink.isCancelled() && sink.requestedFromDownstream() > 0) {
+                    var message = poll();
+                    if (message == null) {
+                        break;
+                    }
+                    sink.next(message);
+                    emittedTotal.incrementAndGet();
+                    var depths = queueDepths;
+                    if (depths != null) {
+                        depths.record(queueDepth());
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
     }
 }
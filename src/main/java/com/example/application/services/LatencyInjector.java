@@ -0,0 +1,54 @@
+package com.example.application.services;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opt-in latency injection for demoing slow backend operations, e.g. the
+ * loading indicators of the UI. Disabled by default, in which case
+ * {@link #inject(String)} returns immediately.
+ * <p>
+ * Enable with {@code com.example.application.latency.enabled=true} and set
+ * the delay of each injection point in milliseconds with
+ * {@code com.example.application.latency.delay.<point>}.
+ */
+@Component
+public class LatencyInjector {
+
+    private static final String DELAY_PREFIX = "com.example.application.latency.delay.";
+
+    private final boolean enabled;
+    private final Environment environment;
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+
+    public LatencyInjector(Environment environment,
+            @Value("${com.example.application.latency.enabled:false}") boolean enabled) {
+        this.environment = environment;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Delay the current thread by the configured amount for the injection
+     * point.
+     *
+     * @param point the name of the injection point
+     */
+    public void inject(String point) {
+        if (!enabled) {
+            return;
+        }
+        long delay = delays.computeIfAbsent(point,
+                key -> environment.getProperty(DELAY_PREFIX + key, Long.class, 0L));
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
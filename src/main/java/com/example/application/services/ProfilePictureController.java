@@ -0,0 +1,152 @@
+package com.example.application.services;
+
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.application.data.UserRepository;
+import com.example.application.security.UserCache;
+
+/**
+ * Serves the profile pictures as cacheable images. The version of the user
+ * is used as the ETag, so browsers can revalidate without the picture being
+ * loaded from the database, and thumbnails are scaled once and kept in
+ * memory. The controller is created on the first picture request rather than
+ * at startup.
+ */
+@RestController
+@Lazy
+public class ProfilePictureController {
+
+    public static final String PATH = "/profile-picture";
+
+    // Supported thumbnail sizes, bounds the number of cached variants
+    private static final Set<Integer> SIZES = Set.of(32, 64, 128);
+
+    Logger logger = LoggerFactory.getLogger(ProfilePictureController.class);
+
+    private UserRepository userRepository;
+    private UserCache userCache;
+
+    private record Thumbnail(int version, byte[] data) {
+    }
+
+    // Latest thumbnail per username and size
+    private Map<String, Thumbnail> thumbnails = new ConcurrentHashMap<>();
+
+    public ProfilePictureController(UserRepository userRepository, UserCache userCache) {
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+    }
+
+    /**
+     * Get the profile picture of the user.
+     *
+     * @param username the username
+     * @param size     the thumbnail size in pixels, null for the original
+     * @param request  the request used for ETag checks
+     * @return the picture, 304 if not modified or 404 if there is none
+     */
+    @GetMapping(PATH + "/{username}")
+    public ResponseEntity<byte[]> getProfilePicture(@PathVariable String username,
+            @RequestParam(required = false) Integer size, WebRequest request) {
+        if (size != null && !SIZES.contains(size)) {
+            return ResponseEntity.badRequest().build();
+        }
+        var user = userCache.get(username);
+        if (user.isEmpty() || !user.get().hasPicture()) {
+            return ResponseEntity.notFound().build();
+        }
+        var version = user.get().version();
+        var etag = "\"" + version + (size == null ? "" : "-" + size) + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        // A current thumbnail is served without loading the picture
+        var key = username + "/" + size;
+        var thumbnail = size == null ? null : thumbnails.get(key);
+        if (thumbnail != null && thumbnail.version() == version && thumbnail.data() != null) {
+            return ok(thumbnail.data(), MediaType.IMAGE_PNG, etag);
+        }
+        var picture = userRepository.findProfilePictureByUsername(username);
+        if (picture.isEmpty() || picture.get().length == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        if (size != null && (thumbnail == null || thumbnail.version() != version)) {
+            // Scaled outside of the map, concurrent requests may scale the
+            // same picture but do not block the other entries. A thumbnail
+            // of a newer version is not replaced.
+            thumbnail = new Thumbnail(version, scale(picture.get(), size));
+            thumbnails.merge(key, thumbnail,
+                    (cached, scaled) -> cached.version() > scaled.version() ? cached : scaled);
+        }
+        if (thumbnail != null && thumbnail.data() != null) {
+            return ok(thumbnail.data(), MediaType.IMAGE_PNG, etag);
+        }
+        // The original picture, served as the stored image type
+        return ok(picture.get(), contentType(picture.get()), etag);
+    }
+
+    private static ResponseEntity<byte[]> ok(byte[] body, MediaType contentType, String etag) {
+        return ResponseEntity.ok().contentType(contentType).eTag(etag)
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate()).body(body);
+    }
+
+    // Detect the image type from the magic bytes of the picture
+    private static MediaType contentType(byte[] picture) {
+        try {
+            var type = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(picture));
+            return type == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(type);
+        } catch (IOException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+
+    // Scale the picture to the size as PNG, null if the picture cannot be read.
+    // Pictures that are not square are cropped to the center square, so that
+    // they keep their aspect ratio.
+    private byte[] scale(byte[] picture, int size) {
+        try {
+            var image = ImageIO.read(new ByteArrayInputStream(picture));
+            if (image == null) {
+                return null;
+            }
+            var scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            var graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            int side = Math.min(image.getWidth(), image.getHeight());
+            int x = (image.getWidth() - side) / 2;
+            int y = (image.getHeight() - side) / 2;
+            graphics.drawImage(image, 0, 0, size, size, x, y, x + side, y + side, null);
+            graphics.dispose();
+            var out = new ByteArrayOutputStream();
+            ImageIO.write(scaled, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            logger.warn("Could not scale profile picture", e);
+            return null;
+        }
+    }
+}
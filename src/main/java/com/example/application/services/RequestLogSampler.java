@@ -0,0 +1,43 @@
+package com.example.application.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which read requests are logged, so that frequent requests do not
+ * flood the log. Writes are always logged. With {@code com.example.application.logging.sample-every=n}
+ * every n:th request is logged at INFO, with the logger at DEBUG level every
+ * request is logged.
+ * <p>
+ * Usage: {@code if (sampler.sample(logger)) logger.info("...", args);} so that
+ * no log arguments are built for requests that are not logged.
+ */
+@Component
+public class RequestLogSampler {
+
+    private final int every;
+    private final AtomicLong requests = new AtomicLong();
+
+    public RequestLogSampler(@Value("${com.example.application.logging.sample-every:10}") int every) {
+        this.every = every;
+    }
+
+    /**
+     * Check whether the current request is to be logged.
+     *
+     * @param logger the logger to log with
+     * @return true if the request is to be logged
+     */
+    public boolean sample(Logger logger) {
+        if (logger.isDebugEnabled()) {
+            return true;
+        }
+        if (!logger.isInfoEnabled()) {
+            return false;
+        }
+        return every <= 1 || requests.incrementAndGet() % every == 0;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.application.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.application.data.Todo;
+import com.example.application.data.TodoRepository;
+import com.example.application.data.TodoRepository.TodoState;
+import com.example.application.services.StatsEndpoint.Stats;
+
+/**
+ * Keeps the todo statistics in memory. The counters are built with aggregate
+ * queries on first use and after that updated incrementally when todos are
+ * saved or removed via {@link TodoEndpoint}. Code that writes todos without
+ * reporting the changes here, such as the data generator, must call
+ * {@link #invalidate()} when done.
+ */
+@Service
+public class StatsService {
+
+    Logger logger = LoggerFactory.getLogger(StatsService.class);
+
+    private TodoRepository repository;
+
+    private boolean initialized = false;
+    private long[] priorityCounts = new long[5];
+    private Map<LocalDate, Long> deadlines = new HashMap<>();
+    private long assigned = 0;
+    private long done = 0;
+    // Transactions with pending deltas that have started to commit but whose
+    // deltas have not been applied yet
+    private int committing = 0;
+
+    public StatsService(TodoRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Get a snapshot of the current statistics.
+     *
+     * @return the statistics
+     */
+    public synchronized Stats getStats() {
+        if (!initialized) {
+            load();
+        }
+        var stats = new Stats();
+        for (int i = 0; i < priorityCounts.length; i++) {
+            stats.priorityCounts[i] = priorityCounts[i];
+        }
+        stats.deadlines = new TreeMap<>(deadlines);
+        stats.assigned = assigned;
+        stats.done = done;
+        return stats;
+    }
+
+    /**
+     * Update the statistics when a todo is saved. The counters are updated
+     * after the current transaction has been committed.
+     *
+     * @param before the state of the todo before saving, null if the todo is new
+     * @param after  the saved todo
+     */
+    public void todoSaved(Todo before, Todo after) {
+        var oldState = before == null ? null : new Todo(before);
+        var newState = new Todo(after);
+        update(() -> {
+            if (oldState != null) {
+                count(oldState, -1);
+            }
+            count(newState, 1);
+        });
+    }
+
+    /**
+     * Update the statistics when todos are removed. The counters are updated
+     * after the current transaction has been committed.
+     *
+     * @param removed the state of the removed todos
+     */
+    public void todosRemoved(List<TodoState> removed) {
+        var states = List.copyOf(removed);
+        update(() -> states.forEach(todo -> count(todo.getPriority(), todo.getDeadline(), todo.isAssigned(),
+                todo.isDone(), -1)));
+    }
+
+    /**
+     * Discard the counters after the current transaction has been committed,
+     * they are rebuilt on next use. Used when todos are written without
+     * reporting the changes.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                initialized = false;
+            }
+        });
+    }
+
+    // Build the initial counters in the database without loading the todos
+    private void load() {
+        logger.info("Building todo statistics");
+        Arrays.fill(priorityCounts, 0);
+        deadlines.clear();
+        repository.countByPriority().forEach(row -> {
+            if (row.getPriority() >= 1 && row.getPriority() <= 5) {
+                priorityCounts[row.getPriority() - 1] = row.getCount();
+            }
+        });
+        repository.countByDeadline().forEach(row -> deadlines.put(row.getDeadline(), row.getCount()));
+        assigned = repository.countAssigned();
+        done = repository.countDone();
+        // A transaction that is committing may or may not be included in the
+        // result, so its delta could be counted twice. The result is then only
+        // used for this call and the counters are loaded again on next use.
+        initialized = committing == 0;
+    }
+
+    // Add or subtract the todo from the counters, must be called with the lock held
+    private void count(Todo todo, long delta) {
+        count(todo.getPriority(), todo.getDeadline(), todo.getAssigned() != null, todo.isDone(), delta);
+    }
+
+    private void count(Integer priority, LocalDate deadline, boolean isAssigned, boolean isDone, long delta) {
+        if (priority != null && priority >= 1 && priority <= 5) {
+            priorityCounts[priority - 1] += delta;
+        }
+        if (deadline != null) {
+            deadlines.merge(deadline, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        if (isAssigned) {
+            assigned += delta;
+        }
+        if (isDone) {
+            done += delta;
+        }
+    }
+
+    // Apply the update once the transaction has been committed, counters are
+    // not tracked before the initial load as it will see the committed state.
+    // The transaction is tracked from before the commit so that a load running
+    // while it commits is not kept, see load().
+    private void update(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this) {
+                if (initialized) {
+                    update.run();
+                }
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean tracked = false;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (StatsService.this) {
+                    committing++;
+                    tracked = true;
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (StatsService.this) {
+                    if (tracked) {
+                        committing--;
+                    }
+                    if (status == STATUS_COMMITTED && initialized) {
+                        update.run();
+                    }
+                }
+            }
+        });
+    }
+}
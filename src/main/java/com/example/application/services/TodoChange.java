@@ -0,0 +1,119 @@
+package com.example.application.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.example.application.data.Todo;
+
+import dev.hilla.Nonnull;
+
+/**
+ * A change of a todo, sent with the {@link EventService.Message} so that
+ * clients can patch their local list instead of fetching all todos again.
+ * Only the values of the changed fields are sent, and the assignee as its
+ * id, the other value fields are null.
+ */
+public class TodoChange {
+
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+
+    public @Nonnull Operation operation;
+    public @Nonnull Integer id;
+    public @Nonnull Integer version;
+    // Names of the changed fields, all fields for creates and none for
+    // deletes. A listed field with a null value has been cleared.
+    public @Nonnull List<@Nonnull String> changed = new ArrayList<>();
+    public String task;
+    public String description;
+    public Integer priority;
+    public LocalDate deadline;
+    public Boolean done;
+    public Integer assignedId;
+
+    /**
+     * Create a change for a saved todo.
+     *
+     * @param before the state before saving, null if the todo is new
+     * @param after  the saved todo
+     * @return the change
+     */
+    public static TodoChange saved(Todo before, Todo after) {
+        var change = new TodoChange();
+        change.operation = before == null ? Operation.CREATED : Operation.UPDATED;
+        change.id = after.getId();
+        change.version = after.getVersion();
+        if (before == null || !Objects.equals(before.getTask(), after.getTask())) {
+            change.set("task", after);
+        }
+        if (before == null || !Objects.equals(before.getDescription(), after.getDescription())) {
+            change.set("description", after);
+        }
+        if (before == null || !Objects.equals(before.getPriority(), after.getPriority())) {
+            change.set("priority", after);
+        }
+        if (before == null || !Objects.equals(before.getDeadline(), after.getDeadline())) {
+            change.set("deadline", after);
+        }
+        if (before == null || before.isDone() != after.isDone()) {
+            change.set("done", after);
+        }
+        if (before == null || !Objects.equals(assignedId(before), assignedId(after))) {
+            change.set("assigned", after);
+        }
+        return change;
+    }
+
+    /**
+     * Create a change for a partially updated todo.
+     *
+     * @param after   the updated todo
+     * @param changed the names of the updated fields
+     * @return the change
+     */
+    public static TodoChange patched(Todo after, List<String> changed) {
+        var change = new TodoChange();
+        change.operation = Operation.UPDATED;
+        change.id = after.getId();
+        change.version = after.getVersion();
+        changed.forEach(field -> change.set(field, after));
+        return change;
+    }
+
+    /**
+     * Create a change for a removed todo.
+     *
+     * @param id      the id of the todo
+     * @param version the version of the removed todo
+     * @return the change
+     */
+    public static TodoChange removed(Integer id, int version) {
+        var change = new TodoChange();
+        change.operation = Operation.DELETED;
+        change.id = id;
+        change.version = version;
+        return change;
+    }
+
+    // Mark the field as changed and copy its value from the todo
+    private void set(String field, Todo todo) {
+        switch (field) {
+        case "task" -> task = todo.getTask();
+        case "description" -> description = todo.getDescription();
+        case "priority" -> priority = todo.getPriority();
+        case "deadline" -> deadline = todo.getDeadline();
+        case "done" -> done = todo.isDone();
+        case "assigned" -> assignedId = assignedId(todo);
+        default -> throw new IllegalArgumentException("Unknown field " + field);
+        }
+        changed.add(field);
+    }
+
+    // The id of a lazy assignee is read without loading it
+    private static Integer assignedId(Todo todo) {
+        return todo.getAssigned() == null ? null : todo.getAssigned().getId();
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.application.services;
+
+import com.example.application.data.Todo;
+
+import dev.hilla.exception.EndpointException;
+
+/**
+ * Thrown when a todo is saved based on an outdated version. The detail of the
+ * error sent to the client is the current state of the todo, so the client
+ * can show or merge it without fetching all todos.
+ */
+public class TodoConflictException extends EndpointException {
+
+    public TodoConflictException(Todo current) {
+        super("Todo " + current.getId() + " has been changed by someone else", current);
+    }
+}
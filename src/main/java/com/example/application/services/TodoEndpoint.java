@@ -1,19 +1,38 @@
 package com.example.application.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.application.data.Contact;
+import com.example.application.data.Role;
 import com.example.application.data.Todo;
+import com.example.application.data.TodoChangeLog;
 import com.example.application.data.TodoRepository;
+import com.example.application.data.TodoRepository.TodoState;
+import com.example.application.security.Roles;
 import com.example.application.services.EventService.Message;
 
 import dev.hilla.BrowserCallable;
@@ -21,6 +40,7 @@ import dev.hilla.Nonnull;
 import dev.hilla.exception.EndpointException;
 import jakarta.annotation.security.PermitAll;
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.validation.Valid;
 
 @BrowserCallable
 @PermitAll
@@ -28,12 +48,57 @@ public class TodoEndpoint {
 
     Logger logger = LoggerFactory.getLogger(TodoEndpoint.class);
 
+    // Keep the IN clauses of the bulk remove reasonably sized
+    private static final int REMOVE_CHUNK_SIZE = 500;
+
     private TodoRepository repository;
     private EventService eventService;
+    private StatsService statsService;
+    private ChangeLogService changeLogService;
+    private LatencyInjector latencyInjector;
+    private RequestLogSampler logSampler;
+    private TransactionTemplate readTransaction;
+
+    public static class Changes {
+        // Todos created or updated since the watermark
+        public @Nonnull List<@Nonnull Todo> upserted;
+        // Ids of the todos removed since the watermark
+        public @Nonnull List<@Nonnull Integer> deleted;
+        // Watermark to use in the next call
+        public @Nonnull Long watermark;
+        // True if upserted contains all todos and the client must drop the
+        // todos it has that are not included
+        public boolean reset;
+    }
+
+    public static class TodoVersion {
+        public @Nonnull Integer id;
+        // Version the client has seen, null to remove any version
+        public Integer version;
+    }
+
+    public static class PageResponse {
+        public @Nonnull List<@Nonnull Todo> content;
+        public @Nonnull Long size;
+    }
 
-    public TodoEndpoint(TodoRepository repository, EventService eventService) {
+    public static class SummaryPageResponse {
+        public @Nonnull List<@Nonnull TodoSummary> content;
+        public @Nonnull Long size;
+    }
+
+    public TodoEndpoint(TodoRepository repository, EventService eventService, StatsService statsService,
+            ChangeLogService changeLogService, LatencyInjector latencyInjector, RequestLogSampler logSampler,
+            PlatformTransactionManager transactionManager) {
         this.repository = repository;
         this.eventService = eventService;
+        this.statsService = statsService;
+        this.changeLogService = changeLogService;
+        this.latencyInjector = latencyInjector;
+        this.logSampler = logSampler;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
     }
 
     /**
@@ -43,19 +108,215 @@ public class TodoEndpoint {
      */
     @Transactional
     public @Nonnull List<@Nonnull Todo> findAll() {
-        doWait();
-        logger.info("Fetching all todos");
+        latencyInjector.inject("todo-find-all");
+        if (logSampler.sample(logger)) {
+            logger.info("Fetching all todos");
+        }
         return repository.findAll();
     }
 
     /**
-     * Save a todo
+     * Find a page of todos matching the filter, sorted by deadline.
+     * 
+     * @param page      the page number
+     * @param pageSize  the page size
+     * @param filter    the filter, null for all todos
+     * @param direction "asc" or "desc", ascending by default
+     * @return the page of todos and the number of matching todos
+     */
+    @Transactional
+    public @Nonnull PageResponse getPage(int page, int pageSize, TodoFilter filter, String direction) {
+        var dbPage = findPage(page, pageSize, filter, direction);
+        var response = new PageResponse();
+        response.content = dbPage.getContent();
+        response.size = dbPage.getTotalElements();
+        return response;
+    }
+
+    /**
+     * Find a page of todo summaries matching the filter, sorted by deadline.
+     * The summaries only carry the id and name of the assignee, which keeps
+     * the payload small, and are selected without loading the entities.
+     * 
+     * @param page      the page number
+     * @param pageSize  the page size
+     * @param filter    the filter, null for all todos
+     * @param direction "asc" or "desc", ascending by default
+     * @return the page of summaries and the number of matching todos
+     */
+    @Transactional
+    public @Nonnull SummaryPageResponse getSummaryPage(int page, int pageSize, TodoFilter filter,
+            String direction) {
+        var dbPage = repository.findSummaries(specification(filter), pageRequest(page, pageSize, direction),
+                TodoSummary.class);
+        if (logSampler.sample(logger)) {
+            logger.info("Summary page {} fetched with {}/{} todos", page, pageSize, dbPage.getTotalElements());
+        }
+        var response = new SummaryPageResponse();
+        response.content = dbPage.getContent();
+        response.size = dbPage.getTotalElements();
+        return response;
+    }
+
+    private Page<Todo> findPage(int page, int pageSize, TodoFilter filter, String direction) {
+        var dbPage = repository.findAll(specification(filter), pageRequest(page, pageSize, direction));
+        if (logSampler.sample(logger)) {
+            logger.info("Page {} fetched with {}/{} todos", page, pageSize, dbPage.getTotalElements());
+        }
+        return dbPage;
+    }
+
+    private static Specification<Todo> specification(TodoFilter filter) {
+        return filter == null ? Specification.<Todo>where(null) : filter.toSpecification();
+    }
+
+    private static PageRequest pageRequest(int page, int pageSize, String direction) {
+        var sort = Sort.by("deadline", "id");
+        sort = "desc".equals(direction) ? sort.descending() : sort.ascending();
+        return PageRequest.of(page, pageSize, sort);
+    }
+
+    /**
+     * Fetch the todos changed since the watermark. With watermark 0 or less,
+     * or a watermark older than the kept tombstones, all todos are returned.
+     * The cost depends on the number of changes instead of the number of
+     * todos, so clients can keep a local copy and only fetch the changes when
+     * they reconnect.
+     * 
+     * @param watermark the watermark of the previous call
+     * @return the changes and the new watermark
+     */
+    @Transactional
+    public @Nonnull Changes changesSince(long watermark) {
+        var changes = new Changes();
+        if (watermark <= 0 || !changeLogService.isRetained(watermark)) {
+            // Read the watermark first, changes after it may be sent again
+            changes.watermark = changeLogService.getWatermark();
+            changes.upserted = repository.findAll();
+            changes.deleted = List.of();
+            changes.reset = true;
+            return changes;
+        }
+        var logs = changeLogService.changesSince(watermark);
+        changes.upserted = repository.findAllById(logs.stream().filter(log -> !log.isDeleted())
+                .map(TodoChangeLog::getTodoId).collect(Collectors.toList()));
+        changes.deleted = logs.stream().filter(TodoChangeLog::isDeleted).map(TodoChangeLog::getTodoId)
+                .collect(Collectors.toList());
+        changes.watermark = logs.stream().mapToLong(TodoChangeLog::getSeq).reduce(watermark, Math::max);
+        if (logSampler.sample(logger)) {
+            logger.info("Fetched {} changes since {}", logs.size(), watermark);
+        }
+        return changes;
+    }
+
+    /**
+     * Save a todo. An existing todo must have the current version, otherwise
+     * a {@link TodoConflictException} with the current state is thrown.
      * 
      * @param todo the todo to save
      * @return the saved todo
      */
     @Transactional
     public Todo save(Todo todo) {
+        var roles = Roles.current();
+        var saved = saveTodo(todo, roles);
+        flush(todo.getAssigned() == null ? List.of() : List.of(todo.getAssigned().getId()));
+        changeLogService.record(List.of(saved.todo().getId()), List.of());
+
+        Message message = new Message();
+        if (saved.updated()) {
+            message.data = "Todo: " + todo.getId() + "/" + todo.getTask() + " updated!";
+        } else {
+            message.data = "Todo: " + todo.getId() + "/" + todo.getTask() + " saved!";
+        }
+        message.id = saved.todo().getId();
+        message.changes = List.of(TodoChange.saved(saved.before(), saved.todo()));
+        // Writes are always logged, the task text is not used as the format
+        logger.info("{}", message.data);
+        AfterCommit.run(() -> eventService.send(message));
+        return saved.todo();
+    }
+
+    /**
+     * Update some fields of a todo with a single UPDATE statement, see
+     * {@link TodoPatch}. The assignee can only be changed with
+     * {@link #save(Todo)}.
+     * 
+     * @param patch the fields to update
+     * @return the updated todo
+     */
+    @Transactional
+    public @Nonnull Todo patch(@Nonnull @Valid TodoPatch patch) {
+        var values = patch.values();
+        if (values.isEmpty()) {
+            throw new EndpointException("No fields to update");
+        }
+        var before = repository.compareAndSet(patch.id, patch.version, values);
+        if (before.isEmpty()) {
+            var current = repository.findById(patch.id)
+                    .orElseThrow(() -> new EndpointException("Todo " + patch.id + " not found"));
+            throw new TodoConflictException(current);
+        }
+        var result = repository.findById(patch.id).orElseThrow();
+        statsService.todoSaved(before.get(), result);
+        changeLogService.record(List.of(result.getId()), List.of());
+
+        Message message = new Message();
+        message.data = "Todo: " + result.getId() + "/" + result.getTask() + " updated!";
+        message.id = result.getId();
+        message.changes = List.of(TodoChange.patched(result, List.copyOf(values.keySet())));
+        logger.info("{}", message.data);
+        AfterCommit.run(() -> eventService.send(message));
+        return result;
+    }
+
+    /**
+     * Save a batch of todos in one transaction. The same validation and role
+     * rules apply as in {@link #save(Todo)}, the inserts and updates are sent
+     * in JDBC batches and only one message is sent for the whole batch.
+     * 
+     * @param todos the todos to save
+     * @return the saved todos in the same order
+     */
+    @Transactional
+    public @Nonnull List<@Nonnull Todo> saveAll(@Nonnull List<@Valid @Nonnull Todo> todos) {
+        var roles = Roles.current();
+        // The occupancy check does not see the other todos of the batch
+        var assigneeIds = todos.stream().map(Todo::getAssigned).filter(Objects::nonNull).map(Contact::getId)
+                .collect(Collectors.toList());
+        var distinctIds = new HashSet<Integer>();
+        for (var assigneeId : assigneeIds) {
+            if (!distinctIds.add(assigneeId)) {
+                throw new EndpointException("Assignee " + assigneeId + " already has a todo!");
+            }
+        }
+        // Load the existing todos with one query, findById will then find
+        // them from the persistence context
+        repository.findAllById(todos.stream().map(Todo::getId).filter(Objects::nonNull).collect(Collectors.toList()));
+        var saved = todos.stream().map(todo -> saveTodo(todo, roles)).collect(Collectors.toList());
+        flush(assigneeIds);
+        var results = saved.stream().map(SavedTodo::todo).collect(Collectors.toList());
+        changeLogService.record(results.stream().map(Todo::getId).collect(Collectors.toList()), List.of());
+
+        Message message = new Message();
+        message.data = "Todos: " + results.stream().map(todo -> "" + todo.getId()).collect(Collectors.joining(","))
+                + " saved!";
+        message.changes = saved.stream().map(s -> TodoChange.saved(s.before(), s.todo()))
+                .collect(Collectors.toList());
+        logger.info("{}", message.data);
+        AfterCommit.run(() -> eventService.send(message));
+        return results;
+    }
+
+    private record SavedTodo(Todo todo, Todo before) {
+        boolean updated() {
+            return before != null;
+        }
+    }
+
+    // Check the role and assignee rules and save the todo, the changes are
+    // written to the database on flush
+    private SavedTodo saveTodo(Todo todo, Set<Role> roles) {
         Todo result;
         Optional<Todo> old;
 
@@ -65,50 +326,80 @@ public class TodoEndpoint {
             old = Optional.empty();
         }
 
+        // The todo must be based on the current version, otherwise the save
+        // would overwrite changes the client has not seen
+        if (old.isPresent() && todo.getVersion() != old.get().getVersion()) {
+            throw new TodoConflictException(old.get());
+        }
+
         var assignedChanged = isAssignedChanged(todo, old);
-        var authorities = getAuthorities();
-        if (assignedChanged && !authorities.contains("ROLE_ADMIN")) {
+        if (assignedChanged && !roles.contains(Role.ADMIN)) {
             logger.warn("Only the ADMIN is allowed to assign Todo!");
             throw new EndpointException("Only the ADMIN is allowed to assign Todo!");
         }
 
-        Message message = new Message();
-
-        if (old.isPresent()) {
-            message.data = "Todo: " + todo.getId() + "/" + todo.getTask() + " updated!";
-        } else {
-            message.data = "Todo: " + todo.getId() + "/" + todo.getTask() + " saved!";
-        }
-
         if (todo.getAssigned() != null && assignedChanged) {
-            logger.info("Assignee changed to " + todo.getAssigned().getId() + " for todo " + todo.getId());
+            logger.info("Assignee changed to {} for todo {}", todo.getAssigned().getId(), todo.getId());
             boolean match = isAssigneeOccupied(todo);
             if (match) {
-                logger.warn("Assignee " + todo.getAssigned().getId() + " already has a todo!");
+                logger.warn("Assignee {} already has a todo!", todo.getAssigned().getId());
                 throw new EndpointException("Assignee " + todo.getAssigned().getId() + " already has a todo!");
             }
         }
 
+        Todo before = null;
         if (old.isPresent()) {
             Todo updated = old.get();
+            before = new Todo(updated);
             updated.from(todo);
             result = repository.save(updated);
         } else {
             result = repository.save(todo);
         }
-        logger.info(message.data);
-        eventService.send(message);
-        return result;
+        statsService.todoSaved(before, result);
+        return new SavedTodo(result, before);
     }
 
-    private List<String> getAuthorities() {
-        Authentication auth = SecurityContextHolder.getContext()
-                .getAuthentication();
-        var authorities = auth.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.toList());
-        logger.info("Authorities: " + authorities.stream().collect(Collectors.joining(",")));
-        return authorities;
+    // Write pending changes, a version mismatch or a unique constraint
+    // violation means that a concurrent save committed after our checks
+    private void flush(Collection<Integer> assigneeIds) {
+        try {
+            repository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw conflict(e);
+        } catch (DataIntegrityViolationException e) {
+            if (!isAssignedConstraint(e)) {
+                throw e;
+            }
+            var message = assigneeIds.size() == 1 ? "Assignee " + assigneeIds.iterator().next()
+                    : "One of the assignees " + assigneeIds;
+            logger.warn("{} already has a todo!", message);
+            throw new EndpointException(message + " already has a todo!");
+        }
+    }
+
+    // Check whether the violated constraint is the unique assignee, other
+    // violations are not caused by the user
+    private static boolean isAssignedConstraint(Throwable e) {
+        for (var cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Todo.ASSIGNED_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The failed transaction is rolled back, so the current state of the todo
+    // is read in a new transaction
+    private RuntimeException conflict(ObjectOptimisticLockingFailureException e) {
+        if (!Todo.class.getName().equals(e.getPersistentClassName()) || !(e.getIdentifier() instanceof Integer id)) {
+            return e;
+        }
+        logger.warn("Todo {} was changed concurrently", id);
+        var current = readTransaction.execute(status -> repository.findById(id));
+        return current.<RuntimeException>map(TodoConflictException::new)
+                .orElseGet(() -> new EndpointException("Todo " + id + " not found"));
     }
 
     // check if the assignee has changed
@@ -119,45 +410,63 @@ public class TodoEndpoint {
             } else if (todo.getAssigned() == null) {
                 return false;
             }
-            return old.get().getAssigned().getId() == todo.getAssigned().getId();
+            return !Objects.equals(old.get().getAssigned().getId(), todo.getAssigned().getId());
         }
         return true;
     }
 
     // check if the assignee already has a todo
     private boolean isAssigneeOccupied(Todo todo) {
-        doWait();
-        List<Todo> todos = repository.findAll();
-        todos.removeIf(t -> t.getId() == todo.getId());
-        IntStream ids = todos.stream().filter(t -> (t.getAssigned() != null)).mapToInt(t -> t.getAssigned().getId());
-        boolean match = ids.anyMatch(id -> id == todo.getAssigned().getId());
-        return match;
-    }
-
-    // simulate a long running operation
-    private void doWait() {
-        try {
-            Thread.sleep(400);
-        } catch (InterruptedException e) {
-        }
+        latencyInjector.inject("todo-assignee-check");
+        return repository.isAssigneeOccupied(todo.getAssigned().getId(), todo.getId());
     }
 
     /**
-     * Remove a todo
+     * Remove todos. The todos are deleted with set based statements in chunks,
+     * a todo is not removed if a version is given and it does not match the
+     * current version in the database.
      * 
-     * @param todos the todos to remove
+     * @param todos the ids and versions of the todos to remove
+     * @return the ids of the todos that were removed
      */
     @Transactional
     @RolesAllowed("ADMIN")
-    public void remove(List<Todo> todos) {
+    public @Nonnull List<@Nonnull Integer> remove(@Nonnull List<@Nonnull TodoVersion> todos) {
+        Map<Integer, Integer> versions = new HashMap<>();
+        todos.stream().filter(todo -> todo.id != null).forEach(todo -> versions.put(todo.id, todo.version));
+        List<Integer> ids = new ArrayList<>(versions.keySet());
+
+        List<TodoState> removedStates = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += REMOVE_CHUNK_SIZE) {
+            var chunk = ids.subList(i, Math.min(i + REMOVE_CHUNK_SIZE, ids.size()));
+            // Lock the rows so that the versions cannot change before delete
+            var matching = repository.lockStates(chunk).stream().filter(row -> {
+                var version = versions.get(row.getId());
+                return version == null || version == row.getVersion();
+            }).collect(Collectors.toList());
+            if (!matching.isEmpty()) {
+                repository.deleteAllByIdInBatch(matching.stream().map(TodoState::getId).collect(Collectors.toList()));
+                removedStates.addAll(matching);
+            }
+        }
+        var removed = removedStates.stream().map(TodoState::getId).collect(Collectors.toList());
+        if (removed.size() < ids.size()) {
+            logger.warn("Todos were modified or already removed, skipped {}", ids.size() - removed.size());
+        }
+        if (removed.isEmpty()) {
+            // Nothing changed, there is nothing to record or notify
+            return removed;
+        }
+        statsService.todosRemoved(removedStates);
+        changeLogService.record(List.of(), removed);
+
         Message message = new Message();
-        message.data = "Todos: " + todos.stream().map(todo -> "" + todo.getId()).collect(Collectors.joining(","))
+        message.data = "Todos: " + removed.stream().map(id -> "" + id).collect(Collectors.joining(","))
                 + " removed!";
-        logger.info(message.data);
-        todos.stream().map(t1 -> repository.findById(t1.getId())).filter(Optional::isPresent).map(Optional::get)
-                .forEach(t -> repository.delete(t));
-        eventService.send(message);
+        message.changes = removedStates.stream().map(row -> TodoChange.removed(row.getId(), row.getVersion()))
+                .collect(Collectors.toList());
+        logger.info("{}", message.data);
+        AfterCommit.run(() -> eventService.send(message));
+        return removed;
     }
-
-    
-}
\ No newline at end of file
+}
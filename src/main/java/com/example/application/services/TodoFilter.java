@@ -0,0 +1,50 @@
+package com.example.application.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.application.data.Todo;
+
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Filter for todo queries, conditions that are null are not applied.
+ */
+public class TodoFilter {
+
+    public Boolean done;
+    public Integer priority;
+    public LocalDate deadlineFrom;
+    public LocalDate deadlineTo;
+    public Integer assignedId;
+
+    /**
+     * Create the JPA specification matching this filter.
+     *
+     * @return the specification
+     */
+    public Specification<Todo> toSpecification() {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (done != null) {
+                predicates.add(builder.equal(root.get("done"), done));
+            }
+            if (priority != null) {
+                predicates.add(builder.equal(root.get("priority"), priority));
+            }
+            if (deadlineFrom != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("deadline"), deadlineFrom));
+            }
+            if (deadlineTo != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("deadline"), deadlineTo));
+            }
+            if (assignedId != null) {
+                predicates.add(builder.equal(root.get("assigned").get("id"), assignedId));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
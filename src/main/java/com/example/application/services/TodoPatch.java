@@ -0,0 +1,75 @@
+package com.example.application.services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.application.validators.CustomDateValidator;
+
+import dev.hilla.Nonnull;
+import dev.hilla.exception.EndpointException;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Partial update of a todo, only the listed fields are changed. With a version
+ * the update fails with a {@link TodoConflictException} if the todo has been
+ * changed since, without a version concurrent updates of different fields are
+ * merged.
+ */
+public class TodoPatch {
+
+    public enum Field {
+        TASK, DESCRIPTION, PRIORITY, DEADLINE, DONE
+    }
+
+    public @Nonnull Integer id;
+    // Version the update is based on, null to merge with concurrent updates
+    public Integer version;
+    public @Nonnull List<@Nonnull Field> fields = new ArrayList<>();
+
+    @Pattern(regexp = "(?s).*\\S.*")
+    public String task;
+    @Pattern(regexp = "(?s).*\\S.*")
+    public String description;
+    @Min(1)
+    @Max(5)
+    public Integer priority;
+    public LocalDate deadline;
+    public Boolean done;
+
+    /**
+     * Get the new values of the listed fields.
+     *
+     * @return the values by attribute name
+     */
+    Map<String, Object> values() {
+        var values = new LinkedHashMap<String, Object>();
+        for (var field : fields) {
+            switch (field) {
+            case TASK -> values.put("task", required(task, "Task"));
+            case DESCRIPTION -> values.put("description", required(description, "Description"));
+            case PRIORITY -> values.put("priority", priority);
+            case DEADLINE -> {
+                // Null clears the deadline
+                if (deadline != null && !new CustomDateValidator().isValid(deadline, null)) {
+                    throw new EndpointException("Deadline must be a weekday in the future");
+                }
+                values.put("deadline", deadline);
+            }
+            case DONE -> values.put("done", required(done, "Done"));
+            }
+        }
+        return values;
+    }
+
+    private static <T> T required(T value, String name) {
+        if (value == null) {
+            throw new EndpointException(name + " must not be empty");
+        }
+        return value;
+    }
+}
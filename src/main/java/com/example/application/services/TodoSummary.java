@@ -0,0 +1,45 @@
+package com.example.application.services;
+
+import java.time.LocalDate;
+
+import dev.hilla.Nonnull;
+
+/**
+ * Lightweight view of a todo for grids, carries only the id and name of the
+ * assignee instead of the whole contact.
+ */
+public class TodoSummary {
+
+    public @Nonnull Integer id;
+    public @Nonnull Integer version;
+    public @Nonnull String task;
+    public String description;
+    public Integer priority;
+    public LocalDate deadline;
+    public @Nonnull Boolean done;
+    public Integer assignedId;
+    public String assignedName;
+
+    public TodoSummary() {
+    }
+
+    /**
+     * Constructor for the summary query, see
+     * {@link com.example.application.data.TodoRepositoryCustom#findSummaries}.
+     */
+    public TodoSummary(Integer id, int version, String task, String description, Integer priority,
+            LocalDate deadline, boolean done, Integer assignedId, String assignedFirstName,
+            String assignedLastName) {
+        this.id = id;
+        this.version = version;
+        this.task = task;
+        this.description = description;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.done = done;
+        this.assignedId = assignedId;
+        if (assignedId != null) {
+            this.assignedName = assignedFirstName + " " + assignedLastName;
+        }
+    }
+}
@@ -9,17 +9,17 @@ public class UserInfo {
 
     @Nonnull
     private String name;
-    @Nonnull
-    private byte[] picture;
+    // URL of the profile picture, null if the user has none
+    private String pictureUrl;
     @Nonnull
     private String fullName;
     @Nonnull
     private Collection<String> authorities;
 
-    public UserInfo(String name, Collection<String> authorities, String fullName, byte[] picture) {
+    public UserInfo(String name, Collection<String> authorities, String fullName, String pictureUrl) {
         this.name = name;
         this.authorities = Collections.unmodifiableCollection(authorities);
-        this.picture = picture;
+        this.pictureUrl = pictureUrl;
         this.fullName = fullName;
     }
 
@@ -35,7 +35,7 @@ public class UserInfo {
         return fullName;
     }
 
-    public byte[] getPicture() {
-        return picture;
+    public String getPictureUrl() {
+        return pictureUrl;
     }
 }
\ No newline at end of file
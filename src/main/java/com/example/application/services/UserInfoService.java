@@ -1,5 +1,6 @@
 package com.example.application.services;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -11,9 +12,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.util.UriUtils;
 
-import com.example.application.data.User;
-import com.example.application.data.UserRepository;
+import com.example.application.security.UserCache;
 
 import dev.hilla.BrowserCallable;
 import dev.hilla.Nonnull;
@@ -23,7 +24,7 @@ import jakarta.annotation.security.PermitAll;
 public class UserInfoService {
 
     @Autowired
-    UserRepository userRepository;
+    UserCache userCache;
 
     @PermitAll
     @Nonnull
@@ -36,22 +37,30 @@ public class UserInfoService {
         }
 
         List<String> authorities = null;
-        byte[] picture = null;
+        String pictureUrl = null;
         String fullName = null;
 
         Object principal = auth.getPrincipal();
         if (principal instanceof Jwt) {
             String username = ((Jwt) principal).getSubject();
-            User userDetails = userRepository.findByUsername(username);
-            picture = userDetails.getProfilePicture();
-            fullName = userDetails.getName();
+            // The picture is served by ProfilePictureController, the version
+            // in the URL changes when the user is updated
+            var user = userCache.get(username);
+            if (user.isPresent()) {
+                if (user.get().hasPicture()) {
+                    pictureUrl = ProfilePictureController.PATH + "/"
+                            + UriUtils.encodePathSegment(username, StandardCharsets.UTF_8) + "?v="
+                            + user.get().version();
+                }
+                fullName = user.get().name();
+            }
         }
 
         authorities = auth.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
 
-        return new UserInfo(auth.getName(), authorities, fullName, picture);
+        return new UserInfo(auth.getName(), authorities, fullName, pictureUrl);
     }
 
 }
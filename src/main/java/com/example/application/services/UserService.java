@@ -2,19 +2,25 @@ package com.example.application.services;
 
 import com.example.application.data.User;
 import com.example.application.data.UserRepository;
+import com.example.application.security.UserCache;
 import java.util.Optional;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Lazy
 public class UserService {
 
     private final UserRepository repository;
+    private final UserCache userCache;
 
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository, UserCache userCache) {
         this.repository = repository;
+        this.userCache = userCache;
     }
 
     public Optional<User> get(Long id) {
@@ -22,11 +28,30 @@ public class UserService {
     }
 
     public User update(User entity) {
-        return repository.save(entity);
+        var saved = repository.save(entity);
+        // Username may have changed, so invalidate all
+        AfterCommit.run(userCache::invalidateAll);
+        return saved;
+    }
+
+    /**
+     * Store a new password hash of the user with a targeted update, only the
+     * cached entry of this user is discarded.
+     *
+     * @return true if the user exists
+     */
+    @Transactional
+    public boolean updatePassword(String username, String hashedPassword) {
+        if (repository.updateHashedPassword(username, hashedPassword) == 0) {
+            return false;
+        }
+        AfterCommit.run(() -> userCache.invalidate(username));
+        return true;
     }
 
     public void delete(Long id) {
         repository.deleteById(id);
+        AfterCommit.run(userCache::invalidateAll);
     }
 
     public Page<User> list(Pageable pageable) {
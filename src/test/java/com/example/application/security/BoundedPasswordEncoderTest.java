@@ -0,0 +1,82 @@
+package com.example.application.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * A login storm on virtual request threads, as the application runs them,
+ * waits for the bounded hashing pool without holding a platform thread per
+ * login, and other requests are still served meanwhile.
+ */
+class BoundedPasswordEncoderTest {
+
+    private static final int THREADS = 2;
+    private static final int LOGINS = 200;
+    private static final long HASH_MILLIS = 20;
+
+    private final AtomicInteger hashing = new AtomicInteger();
+    private final AtomicInteger maxHashing = new AtomicInteger();
+
+    // Stands in for bcrypt, takes a fixed time per check
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            maxHashing.accumulateAndGet(hashing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(HASH_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                hashing.decrementAndGet();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    };
+
+    @Test
+    void loginStormDoesNotHoldRequestThreads() throws Exception {
+        var encoder = new BoundedPasswordEncoder(slowEncoder, THREADS, LOGINS);
+        int platformThreadsBefore = Thread.getAllStackTraces().size();
+        try (var requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> logins = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                logins.add(requests.submit(() -> encoder.matches("password", "password")));
+            }
+            // Wait until most of the storm is queued for the hashing pool
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (encoder.getQueueDepth() < LOGINS / 2 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertTrue(encoder.getQueueDepth() >= LOGINS / 2, "Logins were not queued");
+
+            // The waiting logins do not each hold a platform thread
+            int platformThreads = Thread.getAllStackTraces().size() - platformThreadsBefore;
+            assertTrue(platformThreads < LOGINS / 4,
+                    "Expected few platform threads for " + LOGINS + " waiting logins but got " + platformThreads);
+            // Another request is served while the logins wait
+            assertEquals("ok", requests.submit(() -> "ok").get(1, TimeUnit.SECONDS));
+
+            for (var login : logins) {
+                assertTrue(login.get());
+            }
+        } finally {
+            encoder.destroy();
+        }
+        assertTrue(maxHashing.get() <= THREADS, "Hashing ran on more than " + THREADS + " threads");
+    }
+}
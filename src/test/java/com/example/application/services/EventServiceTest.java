@@ -0,0 +1,181 @@
+package com.example.application.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import com.example.application.services.EventService.Message;
+import com.example.application.services.EventService.OverflowPolicy;
+
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * The overflow policies apply when a subscriber does not request messages,
+ * and every subscriber gets every message when many subscribers keep up with
+ * concurrent senders.
+ */
+class EventServiceTest {
+
+    private static final int SUBSCRIBERS = 1000;
+    private static final int SENDERS = 4;
+    private static final int MESSAGES = 100;
+
+    @Test
+    void dropOldestKeepsNewestMessages() {
+        var service = new EventService(3, OverflowPolicy.DROP_OLDEST);
+        var subscriber = subscribe(service);
+        for (int id = 1; id <= 5; id++) {
+            service.send(message(id, "Todo " + id));
+        }
+        assertEquals(3, service.getSubscriberStats().get(0).queueDepth());
+
+        subscriber.request(10);
+
+        assertEquals(List.of(3, 4, 5), ids(subscriber.received));
+        assertEquals(2, service.getDroppedCount());
+    }
+
+    @Test
+    void coalesceReplacesMessageOfSameTodo() {
+        var service = new EventService(3, OverflowPolicy.COALESCE);
+        var subscriber = subscribe(service);
+        service.send(message(1, "first"));
+        service.send(message(2, "second"));
+        service.send(message(1, "third"));
+
+        subscriber.request(10);
+
+        // The replacing message keeps the place of the replaced one
+        assertEquals(List.of(1, 2), ids(subscriber.received));
+        assertEquals("third", subscriber.received.get(0).data);
+        assertEquals(1, service.getDroppedCount());
+    }
+
+    @Test
+    void coalesceDropsOldestWhenNoMessageOfSameTodo() {
+        var service = new EventService(3, OverflowPolicy.COALESCE);
+        var subscriber = subscribe(service);
+        for (int id = 1; id <= 4; id++) {
+            service.send(message(id, "Todo " + id));
+        }
+
+        subscriber.request(10);
+
+        assertEquals(List.of(2, 3, 4), ids(subscriber.received));
+        assertEquals(1, service.getDroppedCount());
+    }
+
+    @Test
+    void disconnectTerminatesWithOverflow() {
+        var service = new EventService(2, OverflowPolicy.DISCONNECT);
+        var subscriber = subscribe(service);
+        for (int id = 1; id <= 3; id++) {
+            service.send(message(id, "Todo " + id));
+        }
+
+        assertTrue(Exceptions.isOverflow(subscriber.error));
+        assertEquals(0, service.getSubscriberCount());
+        subscriber.request(10);
+        assertTrue(subscriber.received.isEmpty());
+    }
+
+    @Test
+    void requestedMessagesAreEmittedWithoutOverflow() {
+        var service = new EventService(2, OverflowPolicy.DISCONNECT);
+        var subscriber = subscribe(service);
+        subscriber.request(1);
+        for (int id = 1; id <= 3; id++) {
+            service.send(message(id, "Todo " + id));
+        }
+
+        subscriber.request(10);
+
+        assertNull(subscriber.error);
+        assertEquals(List.of(1, 2, 3), ids(subscriber.received));
+        assertEquals(0, service.getDroppedCount());
+    }
+
+    @Test
+    void manySubscribersReceiveAllMessagesOfConcurrentSenders() throws Exception {
+        var service = new EventService(SENDERS * MESSAGES, OverflowPolicy.DROP_OLDEST);
+        List<AtomicInteger> counts = new ArrayList<>();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            var count = new AtomicInteger();
+            counts.add(count);
+            subscriptions.add(service.join().subscribe(message -> count.incrementAndGet()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(SENDERS);
+        try {
+            List<Future<?>> senders = new ArrayList<>();
+            for (int s = 0; s < SENDERS; s++) {
+                int sender = s;
+                senders.add(executor.submit(() -> {
+                    for (int i = 0; i < MESSAGES; i++) {
+                        service.send(message(sender * MESSAGES + i, "Todo " + i));
+                    }
+                }));
+            }
+            for (var sender : senders) {
+                sender.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            subscriptions.forEach(Disposable::dispose);
+        }
+
+        counts.forEach(count -> assertEquals(SENDERS * MESSAGES, count.get()));
+        assertEquals((long) SUBSCRIBERS * SENDERS * MESSAGES, service.getEmittedCount());
+        assertEquals(0, service.getDroppedCount());
+    }
+
+    private static ManualSubscriber subscribe(EventService service) {
+        var subscriber = new ManualSubscriber();
+        service.join().subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static Message message(int id, String data) {
+        var message = new Message();
+        message.id = id;
+        message.data = data;
+        return message;
+    }
+
+    private static List<Integer> ids(List<Message> messages) {
+        return messages.stream().map(message -> message.id).toList();
+    }
+
+    // Requests only what the test asks for
+    private static class ManualSubscriber extends BaseSubscriber<Message> {
+        private final List<Message> received = new CopyOnWriteArrayList<>();
+        private volatile Throwable error;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+        }
+
+        @Override
+        protected void hookOnNext(Message message) {
+            received.add(message);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+    }
+}
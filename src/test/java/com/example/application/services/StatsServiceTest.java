@@ -0,0 +1,112 @@
+package com.example.application.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.application.DatabaseSnapshot;
+import com.example.application.data.Todo;
+import com.example.application.data.TodoRepository;
+
+/**
+ * The incremental counters must match the database also when the counters are
+ * loaded while saves are committing. The writes are committed, so the test is
+ * not run in a transaction.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ StatsService.class, DatabaseSnapshot.class })
+class StatsServiceTest {
+
+    private static final int WRITERS = 4;
+    private static final int SAVES = 50;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private TodoRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void deleteTodos() {
+        repository.deleteAllInBatch();
+        statsService.invalidate();
+    }
+
+    @Test
+    void countersMatchDatabaseAfterConcurrentSavesAndLoads() throws Exception {
+        var transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            var writing = new AtomicBoolean(true);
+            // Reload the counters for as long as the writers run
+            Future<?> loader = executor.submit(() -> {
+                while (writing.get()) {
+                    statsService.invalidate();
+                    statsService.getStats();
+                }
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < SAVES; i++) {
+                        var todo = createTodo(i);
+                        transaction.executeWithoutResult(status -> statsService.todoSaved(null, repository.save(todo)));
+                    }
+                }));
+            }
+            for (var writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+            loader.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var stats = statsService.getStats();
+        Map<Integer, Long> priorities = new HashMap<>();
+        repository.countByPriority().forEach(row -> priorities.put(row.getPriority(), row.getCount()));
+        for (int priority = 1; priority <= 5; priority++) {
+            assertEquals(priorities.getOrDefault(priority, 0L), stats.priorityCounts[priority - 1],
+                    "priority " + priority);
+        }
+        Map<LocalDate, Long> deadlines = new HashMap<>();
+        repository.countByDeadline().forEach(row -> deadlines.put(row.getDeadline(), row.getCount()));
+        assertEquals(deadlines, stats.deadlines);
+        assertEquals(repository.countDone(), stats.done.longValue());
+        assertEquals((long) WRITERS * SAVES, repository.count());
+    }
+
+    private static Todo createTodo(int i) {
+        var todo = new Todo("Task " + i);
+        todo.setDescription("Description " + i);
+        todo.setPriority(1 + i % 5);
+        todo.setDone(i % 3 == 0);
+        todo.setDeadline(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)).plusWeeks(i % 4));
+        return todo;
+    }
+}
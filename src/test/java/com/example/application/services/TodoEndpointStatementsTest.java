@@ -0,0 +1,186 @@
+package com.example.application.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.application.DatabaseSnapshot;
+import com.example.application.data.Contact;
+import com.example.application.data.Todo;
+
+/**
+ * The number of SQL statements of the todo queries must not depend on the
+ * number of todos, counted with the Hibernate statistics.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ TodoEndpoint.class, StatsEndpoint.class, EventService.class, StatsService.class,
+        ChangeLogService.class, LatencyInjector.class, RequestLogSampler.class, DatabaseSnapshot.class })
+class TodoEndpointStatementsTest {
+
+    private static final int TODOS = 40;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private TodoEndpoint endpoint;
+
+    @Autowired
+    private StatsEndpoint statsEndpoint;
+
+    @Autowired
+    private StatsService statsService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void createTodos() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN")));
+        for (int i = 0; i < TODOS; i++) {
+            var contact = createContact(i);
+            entityManager.persist(contact);
+            var todo = createTodo(i);
+            todo.setAssigned(contact);
+            entityManager.persist(todo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void findAllFetchesAssigneesInSameStatement() {
+        var todos = endpoint.findAll();
+        todos.forEach(todo -> todo.getAssigned().getLastName());
+
+        assertEquals(TODOS, todos.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getPageUsesPageAndCountStatements() {
+        var page = endpoint.getPage(1, PAGE_SIZE, null, "asc");
+        page.content.forEach(todo -> todo.getAssigned().getLastName());
+
+        assertEquals(PAGE_SIZE, page.content.size());
+        assertEquals(TODOS, page.size);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getSummaryPageUsesPageAndCountStatements() {
+        var page = endpoint.getSummaryPage(1, PAGE_SIZE, null, "asc");
+
+        assertEquals(PAGE_SIZE, page.content.size());
+        assertEquals(TODOS, page.size);
+        page.content.forEach(summary -> assertTrue(summary.assignedName.startsWith("First")));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveAllSendsBatches() {
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < TODOS; i++) {
+            todos.add(createTodo(i));
+        }
+        endpoint.saveAll(todos);
+        entityManager.flush();
+
+        // Inserts, change log writes and sequence fetches in batches, saving
+        // the todos one by one would take more than one statement per todo
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 10, "Expected at most 10 statements but got " + statements);
+    }
+
+    @Test
+    void getStatsUsesAggregateStatementsWhenCold() {
+        statsService.invalidate();
+        var stats = statsEndpoint.getStats();
+
+        assertEquals(TODOS, stats.assigned.longValue());
+        // Counts by priority and by deadline, assigned and done
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getStatsUsesNoStatementsWhenWarm() {
+        statsService.invalidate();
+        statsEndpoint.getStats();
+        statistics.clear();
+
+        statsEndpoint.getStats();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void saveWithNewAssigneeReadsTodoOnceAndChecksOccupancy() {
+        var contact = createContact(TODOS);
+        entityManager.persist(contact);
+        var todoId = entityManager.getEntityManager()
+                .createQuery("select t.id from Todo t order by t.id", Integer.class).setMaxResults(1)
+                .getSingleResult();
+        var todo = entityManager.find(Todo.class, todoId);
+        entityManager.flush();
+        entityManager.clear();
+        todo.setAssigned(contact);
+        statistics.clear();
+
+        endpoint.save(todo);
+        entityManager.flush();
+
+        var todoStatistics = statistics.getEntityStatistics(Todo.class.getName());
+        // The version is read with the todo and its assignee in one select
+        assertEquals(1, todoStatistics.getLoadCount());
+        assertEquals(1, todoStatistics.getUpdateCount());
+        // Todo select, occupancy check and todo update, then the change log:
+        // sequence lock, log select, log id, log insert and sequence update.
+        // The occupancy check does not flush the pending update first.
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 8, "Expected at most 8 statements but got " + statements);
+    }
+
+    private static Contact createContact(int i) {
+        var contact = new Contact();
+        contact.setFirstName("First" + i);
+        contact.setLastName("Last" + i);
+        contact.setEmail("contact" + i + "@example.com");
+        contact.setDate(LocalDate.now());
+        return contact;
+    }
+
+    private static Todo createTodo(int i) {
+        var todo = new Todo("Task " + i);
+        todo.setDescription("Description " + i);
+        todo.setPriority(1 + i % 5);
+        todo.setDeadline(LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY)));
+        return todo;
+    }
+}